@@ -0,0 +1,72 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Journaling a push opened event while no listener is attached, and reading back a journal of 100
+// such events as happens when persisted events are restored at startup
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventJournalBenchmark {
+
+    private EventJournal appendJournal;
+    private EventJournal readJournal;
+    private Map<String, Object> event;
+
+    @Setup
+    public void setUp() throws IOException, JSONException {
+        event = new HashMap<>(2);
+        event.put("type", "push.opened");
+        event.put("data", MessageMapper.pushMessageToMap(Payloads.pushMessage(Payloads.pushData()), null));
+
+        appendJournal = new EventJournal(File.createTempFile("append", ".journal"));
+        readJournal = new EventJournal(File.createTempFile("read", ".journal"));
+        for (int i = 0; i < 100; ++i) {
+            readJournal.append(event);
+        }
+    }
+
+    // Keeps the journal from growing without bound across an iteration's appends
+    @Setup(Level.Iteration)
+    public void truncate() throws IOException {
+        appendJournal.truncate();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        appendJournal.truncate();
+        readJournal.truncate();
+    }
+
+    @Benchmark
+    public void append() throws IOException, JSONException {
+        appendJournal.append(event);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> readAll() throws IOException {
+        return readJournal.readAll();
+    }
+}
@@ -0,0 +1,80 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.content.Context;
+
+import com.kumulos.android.InAppInboxItem;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Changing every message in an inbox through one batch call vs a call per message. Mark as read &
+// delete share InboxMutations, differing only in the SDK call & cache listener. Each inbox read
+// builds the stub items afresh, standing in for the SDK's query; the SDK's own write per message
+// isn't modelled and leaves the inbox unchanged.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InboxMutationsBenchmark {
+
+    @Param({"100", "1000"})
+    public int messages;
+
+    private Context context;
+    private List<Integer> ids;
+    private InboxMutations mutations;
+    private int unreadChanged;
+
+    @Setup
+    public void setUp() {
+        context = Payloads.context();
+
+        ids = new ArrayList<>(messages);
+        for (int i = 0; i < messages; ++i) {
+            ids.add(i);
+        }
+
+        InAppInboxCache inboxCache = new InAppInboxCache(context -> loadInbox());
+        mutations = new InboxMutations(inboxCache, (context, item) -> true,
+                (changedIds, unreadCount) -> unreadChanged += unreadCount);
+    }
+
+    @Benchmark
+    public List<Boolean> perMessage() {
+        List<Boolean> results = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            results.add(mutations.apply(context, id));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<Boolean> batch() {
+        return mutations.applyBatch(context, ids);
+    }
+
+    private List<InAppInboxItem> loadInbox() {
+        try {
+            return Payloads.inboxItems(messages);
+        } catch (JSONException | MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+// Inbox date formatting: IsoDateFormatter against the SimpleDateFormat it replaced, which was
+// created once per inAppGetInboxItems call
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IsoDateFormatterBenchmark {
+
+    private Date date;
+    private SimpleDateFormat simpleDateFormat;
+
+    @Setup
+    public void setUp() {
+        date = new Date(1_660_000_000_000L);
+        simpleDateFormat = createSimpleDateFormat();
+    }
+
+    @Benchmark
+    public String isoDateFormatter() {
+        return IsoDateFormatter.format(date);
+    }
+
+    @Benchmark
+    public String simpleDateFormat() {
+        return simpleDateFormat.format(date);
+    }
+
+    @Benchmark
+    public String simpleDateFormatPerCall() {
+        return createSimpleDateFormat().format(date);
+    }
+
+    private static SimpleDateFormat createSimpleDateFormat() {
+        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return formatter;
+    }
+}
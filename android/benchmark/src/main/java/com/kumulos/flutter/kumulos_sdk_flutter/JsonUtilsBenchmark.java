@@ -0,0 +1,59 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// JsonUtils.toMap on push data, as done for every push received, opened & in-app deep link, against
+// the recursive conversion it replaced
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonUtilsBenchmark {
+
+    @Param({"push", "large", "nested"})
+    public String payload;
+
+    private JSONObject data;
+
+    @Setup
+    public void setUp() throws JSONException {
+        switch (payload) {
+            case "large":
+                data = Payloads.largePushData(200);
+                break;
+            case "nested":
+                data = Payloads.nestedData(30);
+                break;
+            default:
+                data = Payloads.pushData();
+                break;
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> toMap() throws JSONException {
+        return JsonUtils.toMap(data);
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyToMap() throws JSONException {
+        return LegacyJsonUtils.toMap(data);
+    }
+}
@@ -0,0 +1,123 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.util.JsonReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+// Opening & reading kumulos.json as KumulosInitProvider does at startup, from the config baked in
+// by generateKumulosConfig vs the Flutter asset. The asset is a plain file here, so "asset" is a
+// lower bound on a device, where AssetManager reads it out of the APK.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KumulosConfigSourceBenchmark {
+
+    // Every documented key, as in a fully configured app
+    private static final String CONFIG = "{\n"
+            + "    \"apiKey\": \"7e0e7a2c-8d8e-4c38-9a4b-1b9e9a3e2f10\",\n"
+            + "    \"secretKey\": \"q3Jf8kLm2Np5Rs7Tv9Wx1Yz4Ab6Cd8Ef0Gh2Ij4Kl\",\n"
+            + "    \"enableCrashReporting\": true,\n"
+            + "    \"inAppConsentStrategy\": \"auto-enroll\",\n"
+            + "    \"enableDeferredDeepLinking\": \"links.example.com\",\n"
+            + "    \"eventQueueCapacity\": 200,\n"
+            + "    \"eventQueueOverflowPolicy\": \"coalesce-by-type\",\n"
+            + "    \"persistPendingEvents\": true,\n"
+            + "    \"inboxUpdateCoalesceWindowMs\": 250,\n"
+            + "    \"initInMainProcessOnly\": true,\n"
+            + "    \"deferInitialization\": true,\n"
+            + "    \"logStartupMetrics\": false,\n"
+            + "    \"enableTracing\": false,\n"
+            + "    \"prewarmFlutterEngine\": true,\n"
+            + "    \"locationMinDistanceMeters\": 25.5,\n"
+            + "    \"locationMinIntervalMs\": 60000,\n"
+            + "    \"locationFlushIntervalMs\": 300000,\n"
+            + "    \"prefetchInboxImages\": true,\n"
+            + "    \"inboxImageCacheSizeBytes\": 20971520,\n"
+            + "    \"compactMessageCodec\": true,\n"
+            + "    \"rawJsonPayloads\": false,\n"
+            + "    \"jsonMaxDepth\": 32,\n"
+            + "    \"jsonMaxElements\": 10000\n"
+            + "}\n";
+
+    @Param({"generated", "asset"})
+    public String source;
+
+    private File assetsDir;
+    private String generatedJson;
+    private KumulosConfigSource.AssetOpener assets;
+
+    @Setup
+    public void setUp() throws IOException {
+        assetsDir = File.createTempFile("kumulos-assets", "");
+        assetsDir.delete();
+        File asset = new File(assetsDir, KumulosConfigSource.ASSET_KEY);
+        asset.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(asset)) {
+            out.write(CONFIG.getBytes(Charset.forName("UTF-8")));
+        }
+
+        generatedJson = "generated".equals(source) ? CONFIG : null;
+        assets = key -> new FileInputStream(new File(assetsDir, key));
+    }
+
+    @TearDown
+    public void tearDown() {
+        File asset = new File(assetsDir, KumulosConfigSource.ASSET_KEY);
+        asset.delete();
+        asset.getParentFile().delete();
+        assetsDir.delete();
+    }
+
+    @Benchmark
+    public int readConfig() throws IOException {
+        JsonReader reader = KumulosConfigSource.open(generatedJson, assets);
+        int values = 0;
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                reader.nextName();
+                switch (reader.peek()) {
+                    case STRING:
+                        reader.nextString();
+                        break;
+                    case BOOLEAN:
+                        reader.nextBoolean();
+                        break;
+                    case NUMBER:
+                        reader.nextDouble();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+                values++;
+            }
+            reader.endObject();
+        } finally {
+            reader.close();
+        }
+        return values;
+    }
+}
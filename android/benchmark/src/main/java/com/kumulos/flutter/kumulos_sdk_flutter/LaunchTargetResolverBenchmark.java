@@ -0,0 +1,75 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Resolving the push open launch target and its parent stack, cold (a fresh resolver, as on the
+// first open in a process) vs cached. The parent chain comes from an in-memory manifest here, so
+// "cold" covers the class lookup & chain building but not the PackageManager calls on a device.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LaunchTargetResolverBenchmark {
+
+    private static final String PACKAGE_NAME = "com.example.app";
+
+    private Context context;
+    private ComponentName component;
+    private Map<String, String> manifestParents;
+    private LaunchTargetResolver cachedResolver;
+
+    @Setup
+    public void setUp() {
+        context = Payloads.context();
+
+        // A launch activity two levels below the app's root activity
+        component = new ComponentName(PACKAGE_NAME, LaunchTargetResolverBenchmark.class.getName());
+        manifestParents = new HashMap<>();
+        manifestParents.put(component.getClassName(), "com.example.app.DetailActivity");
+        manifestParents.put("com.example.app.DetailActivity", "com.example.app.MainActivity");
+
+        cachedResolver = new LaunchTargetResolver(this::loadParentStack);
+        cachedResolver.resolve(component).getParentStack(context);
+    }
+
+    @Benchmark
+    public Intent[] cold() {
+        return new LaunchTargetResolver(this::loadParentStack).resolve(component).getParentStack(context);
+    }
+
+    @Benchmark
+    public Intent[] cached() {
+        return cachedResolver.resolve(component).getParentStack(context);
+    }
+
+    private Intent[] loadParentStack(Context context, ComponentName component) {
+        List<Intent> stack = new ArrayList<>();
+        String parent = manifestParents.get(component.getClassName());
+        while (null != parent) {
+            stack.add(0, new Intent().setComponent(new ComponentName(PACKAGE_NAME, parent)));
+            parent = manifestParents.get(parent);
+        }
+        return stack.toArray(new Intent[0]);
+    }
+}
@@ -0,0 +1,83 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import com.kumulos.android.InAppInboxItem;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Encoding & decoding 100 and 500 item inboxes with KumulosMessageCodec, keyed vs compact. The
+// encodedBytes counter reports the message size.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Inbox {
+        @Param({"100", "500"})
+        public int items;
+
+        @Param({"false", "true"})
+        public boolean compact;
+
+        List<Map<String, Object>> mapped;
+        ByteBuffer encoded;
+
+        @Setup
+        public void setUp() throws JSONException, MalformedURLException {
+            KumulosMessageCodec.setCompact(compact);
+
+            List<InAppInboxItem> inboxItems = Payloads.inboxItems(items);
+            mapped = new ArrayList<>(inboxItems.size());
+            for (InAppInboxItem item : inboxItems) {
+                mapped.add(MessageMapper.inboxItemToMap(item, false, null));
+            }
+            encoded = KumulosMessageCodec.INSTANCE.encodeMessage(mapped);
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Size {
+        public long encodedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            encodedBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer encodeInbox(Inbox inbox, Size size) {
+        ByteBuffer encoded = KumulosMessageCodec.INSTANCE.encodeMessage(inbox.mapped);
+        size.encodedBytes = encoded.capacity();
+        return encoded;
+    }
+
+    @Benchmark
+    public Object decodeInbox(Inbox inbox) {
+        inbox.encoded.rewind();
+        return KumulosMessageCodec.INSTANCE.decodeMessage(inbox.encoded);
+    }
+}
@@ -0,0 +1,100 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import com.kumulos.android.InAppInboxItem;
+import com.kumulos.android.PushMessage;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.MalformedURLException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The conversions behind push events, inAppGetInboxItems & trackEvent
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageMapperBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Push {
+        @Param({"false", "true"})
+        public boolean rawJsonPayloads;
+
+        PushMessage message;
+
+        @Setup
+        public void setUp() throws JSONException {
+            MessageMapper.setRawJsonPayloads(rawJsonPayloads);
+            message = Payloads.pushMessage(Payloads.pushData());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Inbox {
+        @Param({"false", "true"})
+        public boolean epochMillis;
+
+        List<InAppInboxItem> items;
+
+        @Setup
+        public void setUp() throws JSONException, MalformedURLException {
+            items = Payloads.inboxItems(100);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Props {
+        Map<String, Object> map;
+        byte[] bytes;
+
+        @Setup
+        public void setUp() {
+            map = Payloads.eventProps();
+            bytes = new JSONObject(map).toString().getBytes(Charset.forName("UTF-8"));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> pushMessageToMap(Push push) {
+        return MessageMapper.pushMessageToMap(push.message, null);
+    }
+
+    /**
+     * The per-item mapping for an inAppGetInboxItems call on a 100 item inbox
+     */
+    @Benchmark
+    public List<Map<String, Object>> inboxItemsToMaps(Inbox inbox) {
+        List<Map<String, Object>> results = new ArrayList<>(inbox.items.size());
+        for (InAppInboxItem item : inbox.items) {
+            results.add(MessageMapper.inboxItemToMap(item, inbox.epochMillis, null));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public JSONObject propsToJsonFromMap(Props props) throws JSONException {
+        return MessageMapper.propsToJson(props.map);
+    }
+
+    @Benchmark
+    public JSONObject propsToJsonFromBytes(Props props) throws JSONException {
+        return MessageMapper.propsToJson(props.bytes);
+    }
+}
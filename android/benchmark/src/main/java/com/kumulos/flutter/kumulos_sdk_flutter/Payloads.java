@@ -0,0 +1,138 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.kumulos.android.InAppInboxItem;
+import com.kumulos.android.PushMessage;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Representative payloads shared by the benchmarks
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    /**
+     * Stands in for the application context, which the mapped code only passes through
+     */
+    static Context context() {
+        return new Context() {
+            @Override
+            public File getFilesDir() {
+                return null;
+            }
+
+            @Override
+            public File getNoBackupFilesDir() {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * A typical campaign push: Kumulos message metadata, a deep link & a handful of custom keys
+     */
+    static JSONObject pushData() throws JSONException {
+        JSONObject data = new JSONObject();
+        data.put("k.message", new JSONObject()
+                .put("type", 1)
+                .put("data", new JSONObject().put("id", 12345)));
+        data.put("k.deepLink", new JSONObject()
+                .put("url", "https://example.com/offers/summer?utm_source=push")
+                .put("data", new JSONObject().put("offerId", "SUMMER-25").put("discount", 25)));
+        data.put("campaign", "summer-sale");
+        data.put("badge", 3);
+        data.put("sound", "default");
+        data.put("tags", new JSONArray().put("offers").put("seasonal").put("vip"));
+        return data;
+    }
+
+    /**
+     * A data-heavy push, e.g. a content feed carried in the payload
+     */
+    static JSONObject largePushData(int itemCount) throws JSONException {
+        JSONObject data = pushData();
+        JSONArray items = new JSONArray();
+        for (int i = 0; i < itemCount; ++i) {
+            items.put(new JSONObject()
+                    .put("id", i)
+                    .put("title", "Item " + i)
+                    .put("price", 9.99 + i)
+                    .put("available", i % 3 != 0)
+                    .put("image", "https://cdn.example.com/items/" + i + ".jpg"));
+        }
+        data.put("items", items);
+        return data;
+    }
+
+    static JSONObject nestedData(int depth) throws JSONException {
+        JSONObject root = new JSONObject();
+        JSONObject current = root;
+        for (int i = 0; i < depth; ++i) {
+            JSONObject child = new JSONObject().put("level", i);
+            current.put("child", child);
+            current = child;
+        }
+        return root;
+    }
+
+    static PushMessage pushMessage(JSONObject data) {
+        return new PushMessage(42, "Summer sale", "25% off everything this weekend", data,
+                Uri.parse("https://example.com/offers/summer"));
+    }
+
+    static List<InAppInboxItem> inboxItems(int count) throws JSONException, MalformedURLException {
+        List<InAppInboxItem> items = new ArrayList<>(count);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < count; ++i) {
+            InAppInboxItem item = new InAppInboxItem();
+            item.setId(i);
+            item.setTitle("Message " + i);
+            item.setSubtitle("Subtitle for message " + i);
+            item.setSentAt(new Date(now - i * 3_600_000L));
+            item.setAvailableFrom(new Date(now - i * 3_600_000L));
+            item.setAvailableTo(i % 2 == 0 ? new Date(now + 7 * 86_400_000L) : null);
+            item.setRead(i % 4 == 0);
+            item.setData(new JSONObject().put("category", "news").put("priority", i % 3));
+            item.setImageUrl(new URL("https://cdn.example.com/inbox/" + i + ".png"));
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * Event properties as they arrive from Dart for trackEvent
+     */
+    static Map<String, Object> eventProps() {
+        Map<String, Object> product = new HashMap<>();
+        product.put("sku", "SKU-123456");
+        product.put("name", "Running shoes");
+        product.put("price", 89.99);
+        product.put("quantity", 1);
+
+        List<Object> categories = new ArrayList<>();
+        categories.add("footwear");
+        categories.add("running");
+
+        Map<String, Object> props = new HashMap<>();
+        props.put("product", product);
+        props.put("categories", categories);
+        props.put("screen", "product_detail");
+        props.put("sessionId", "b3f2c1de-8a4b-4c7e-9f10-2d5e6a7b8c9d");
+        props.put("firstVisit", false);
+        return props;
+    }
+}
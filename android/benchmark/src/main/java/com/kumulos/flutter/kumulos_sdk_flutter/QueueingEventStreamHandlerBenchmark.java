@@ -0,0 +1,128 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.flutter.plugin.common.EventChannel;
+
+// Event delivery through QueueingEventStreamHandler. "contended" has three threads sending (as
+// push receivers & SDK callbacks do) while the main thread delivers; "queued" fills the bounded
+// queue with no listener attached, exercising the overflow policy on every send.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueingEventStreamHandlerBenchmark {
+
+    @State(Scope.Group)
+    public static class Listening {
+        QueueingEventStreamHandler handler;
+        Map<String, Object> event;
+
+        @Setup
+        public void setUp() {
+            handler = new QueueingEventStreamHandler(new Handler(Looper.getMainLooper()));
+            handler.onListen(null, new CountingSink());
+            event = pushOpenedEvent();
+        }
+
+        @TearDown
+        public void tearDown() {
+            Looper.drainMainLooper();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MainThread {
+        @Setup
+        public void setUp() {
+            Looper.prepareMainLooper();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Queued {
+        @Param({"drop-oldest", "drop-newest", "coalesce-by-type"})
+        public String overflowPolicy;
+
+        QueueingEventStreamHandler handler;
+        Map<String, Object> event;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            Looper.prepareMainLooper();
+            handler = new QueueingEventStreamHandler(new Handler(Looper.getMainLooper()));
+            handler.configureQueue(BoundedEventQueue.DEFAULT_CAPACITY,
+                    BoundedEventQueue.OverflowPolicy.fromConfigValue(overflowPolicy));
+            event = pushOpenedEvent();
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public void send(Listening state) {
+        state.handler.send(state.event);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public int deliver(Listening state, MainThread mainThread) {
+        return Looper.drainMainLooper();
+    }
+
+    @Benchmark
+    public void queued(Queued state) {
+        state.handler.send(state.event);
+    }
+
+    private static Map<String, Object> pushOpenedEvent() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", 42);
+        data.put("title", "Summer sale");
+
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "push.opened");
+        event.put("data", data);
+        return event;
+    }
+
+    private static class CountingSink implements EventChannel.EventSink {
+        long count;
+
+        @Override
+        public void success(Object event) {
+            count++;
+        }
+
+        @Override
+        public void error(String errorCode, String errorMessage, Object errorDetails) {
+        }
+
+        @Override
+        public void endOfStream() {
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.flutter.plugin.common.StandardMessageCodec;
+
+// The native side of tracking a burst of events: one trackEvent call per event against a single
+// trackEvents call. Each call decodes its arguments from the channel message & converts the
+// properties to JSON; the per-call envelope is approximated as [method, arguments]. The time
+// spent crossing the channel itself isn't included, so this is a lower bound on what batching saves.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrackEventsBenchmark {
+
+    @Param({"1", "20"})
+    public int eventCount;
+
+    private final StandardMessageCodec codec = StandardMessageCodec.INSTANCE;
+    private List<Map<String, Object>> events;
+
+    @Setup
+    public void setUp() {
+        events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; ++i) {
+            Map<String, Object> event = new HashMap<>();
+            event.put("type", "product_viewed");
+            event.put("props", Payloads.eventProps());
+            event.put("flush", false);
+            events.add(event);
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void singleCalls(Blackhole blackhole) throws JSONException {
+        for (Map<String, Object> event : events) {
+            ByteBuffer message = codec.encodeMessage(Arrays.asList("trackEvent", event));
+            message.flip();
+
+            List<Object> call = (List<Object>) codec.decodeMessage(message);
+            Map<String, Object> arguments = (Map<String, Object>) call.get(1);
+            blackhole.consume(MessageMapper.propsToJson(arguments.get("props")));
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void batchedCall(Blackhole blackhole) throws JSONException {
+        ByteBuffer message = codec.encodeMessage(Arrays.asList("trackEvents", events));
+        message.flip();
+
+        List<Object> call = (List<Object>) codec.decodeMessage(message);
+        List<Map<String, Object>> arguments = (List<Map<String, Object>>) call.get(1);
+        JSONObject[] props = new JSONObject[arguments.size()];
+        for (int i = 0; i < props.length; ++i) {
+            props[i] = MessageMapper.propsToJson(arguments.get(i).get("props"));
+        }
+        blackhole.consume(props);
+    }
+}
@@ -0,0 +1,33 @@
+package android.content;
+
+public final class ComponentName {
+    private final String packageName;
+    private final String className;
+
+    public ComponentName(String packageName, String className) {
+        this.packageName = packageName;
+        this.className = className;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ComponentName)) {
+            return false;
+        }
+        ComponentName other = (ComponentName) obj;
+        return packageName.equals(other.packageName) && className.equals(other.className);
+    }
+
+    @Override
+    public int hashCode() {
+        return packageName.hashCode() + className.hashCode();
+    }
+}
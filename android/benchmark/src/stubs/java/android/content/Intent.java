@@ -0,0 +1,21 @@
+package android.content;
+
+public class Intent {
+    private ComponentName component;
+
+    public Intent() {
+    }
+
+    public Intent(Intent other) {
+        this.component = other.component;
+    }
+
+    public Intent setComponent(ComponentName component) {
+        this.component = component;
+        return this;
+    }
+
+    public ComponentName getComponent() {
+        return component;
+    }
+}
@@ -0,0 +1,14 @@
+package android.os;
+
+public class Build {
+    public static class VERSION {
+        public static final int SDK_INT = VERSION_CODES.R;
+    }
+
+    public static class VERSION_CODES {
+        public static final int JELLY_BEAN_MR2 = 18;
+        public static final int LOLLIPOP = 21;
+        public static final int Q = 29;
+        public static final int R = 30;
+    }
+}
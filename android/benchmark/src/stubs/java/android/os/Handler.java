@@ -0,0 +1,18 @@
+package android.os;
+
+// Delays are ignored, posted runnables run on the looper's next drain
+public class Handler {
+    private final Looper looper;
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public final boolean post(Runnable r) {
+        return looper.enqueue(r);
+    }
+
+    public final boolean postDelayed(Runnable r, long delayMillis) {
+        return looper.enqueue(r);
+    }
+}
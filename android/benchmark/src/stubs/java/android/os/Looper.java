@@ -0,0 +1,66 @@
+package android.os;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// JVM stand-in for the main looper. The thread that calls prepareMainLooper() acts as the main
+// thread, running runnables posted from other threads whenever it calls drainMainLooper().
+//
+// Posting applies backpressure once MAX_PENDING runnables are waiting, so senders that outpace the
+// main thread can't run the heap out. A post that stays blocked for MAX_BLOCK_NANOS (e.g. once the
+// main thread has stopped draining at the end of a benchmark iteration) is dropped.
+public final class Looper {
+    private static final int MAX_PENDING = 1024;
+    private static final long MAX_BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final Looper MAIN = new Looper();
+    private static final ThreadLocal<Looper> CURRENT = new ThreadLocal<>();
+
+    private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN;
+    }
+
+    public static Looper myLooper() {
+        return CURRENT.get();
+    }
+
+    public static void prepareMainLooper() {
+        CURRENT.set(MAIN);
+    }
+
+    /**
+     * @return the number of runnables run
+     */
+    public static int drainMainLooper() {
+        int count = 0;
+        Runnable runnable;
+        while (null != (runnable = MAIN.queue.poll())) {
+            MAIN.pending.decrementAndGet();
+            runnable.run();
+            count++;
+        }
+        return count;
+    }
+
+    boolean enqueue(Runnable runnable) {
+        if (pending.get() >= MAX_PENDING) {
+            long blockedAt = System.nanoTime();
+            while (pending.get() >= MAX_PENDING) {
+                if (System.nanoTime() - blockedAt > MAX_BLOCK_NANOS) {
+                    return false;
+                }
+                Thread.yield();
+            }
+        }
+
+        pending.incrementAndGet();
+        return queue.add(runnable);
+    }
+}
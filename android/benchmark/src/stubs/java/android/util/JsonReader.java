@@ -0,0 +1,63 @@
+package android.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+// android.util.JsonReader began as a copy of Gson's streaming reader, so this delegates to Gson's
+public final class JsonReader implements Closeable {
+    private final com.google.gson.stream.JsonReader delegate;
+
+    public JsonReader(Reader in) {
+        delegate = new com.google.gson.stream.JsonReader(in);
+    }
+
+    public void beginObject() throws IOException {
+        delegate.beginObject();
+    }
+
+    public void endObject() throws IOException {
+        delegate.endObject();
+    }
+
+    public boolean hasNext() throws IOException {
+        return delegate.hasNext();
+    }
+
+    public JsonToken peek() throws IOException {
+        return JsonToken.valueOf(delegate.peek().name());
+    }
+
+    public String nextName() throws IOException {
+        return delegate.nextName();
+    }
+
+    public String nextString() throws IOException {
+        return delegate.nextString();
+    }
+
+    public boolean nextBoolean() throws IOException {
+        return delegate.nextBoolean();
+    }
+
+    public double nextDouble() throws IOException {
+        return delegate.nextDouble();
+    }
+
+    public long nextLong() throws IOException {
+        return delegate.nextLong();
+    }
+
+    public int nextInt() throws IOException {
+        return delegate.nextInt();
+    }
+
+    public void skipValue() throws IOException {
+        delegate.skipValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,99 @@
+package com.kumulos.android;
+
+import org.json.JSONObject;
+
+import java.net.URL;
+import java.util.Date;
+
+public class InAppInboxItem {
+    private int id;
+    private String title;
+    private String subtitle;
+    private Date sentAt;
+    private Date availableFrom;
+    private Date availableTo;
+    private Date dismissedAt;
+    private boolean read;
+    private JSONObject data;
+    private URL imageUrl;
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getSubtitle() {
+        return subtitle;
+    }
+
+    public void setSubtitle(String subtitle) {
+        this.subtitle = subtitle;
+    }
+
+    public Date getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(Date sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    public Date getAvailableFrom() {
+        return availableFrom;
+    }
+
+    public void setAvailableFrom(Date availableFrom) {
+        this.availableFrom = availableFrom;
+    }
+
+    public Date getAvailableTo() {
+        return availableTo;
+    }
+
+    public void setAvailableTo(Date availableTo) {
+        this.availableTo = availableTo;
+    }
+
+    public Date getDismissedAt() {
+        return dismissedAt;
+    }
+
+    public void setDismissedAt(Date dismissedAt) {
+        this.dismissedAt = dismissedAt;
+    }
+
+    public boolean isRead() {
+        return read;
+    }
+
+    public void setRead(boolean read) {
+        this.read = read;
+    }
+
+    public JSONObject getData() {
+        return data;
+    }
+
+    public void setData(JSONObject data) {
+        this.data = data;
+    }
+
+    public URL getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(URL imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+}
@@ -0,0 +1,15 @@
+package com.kumulos.android;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class KumulosInApp {
+    private KumulosInApp() {
+    }
+
+    public static List<InAppInboxItem> getInboxItems(Context context) {
+        return new ArrayList<>();
+    }
+}
@@ -0,0 +1,41 @@
+package com.kumulos.android;
+
+import android.net.Uri;
+
+import org.json.JSONObject;
+
+public class PushMessage {
+    private final int id;
+    private final String title;
+    private final String message;
+    private final JSONObject data;
+    private final Uri url;
+
+    public PushMessage(int id, String title, String message, JSONObject data, Uri url) {
+        this.id = id;
+        this.title = title;
+        this.message = message;
+        this.data = data;
+        this.url = url;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public JSONObject getData() {
+        return data;
+    }
+
+    public Uri getUrl() {
+        return url;
+    }
+}
@@ -0,0 +1,300 @@
+package io.flutter.plugin.common;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Writes & reads the same wire format as the Flutter embedding's StandardMessageCodec, so encoded
+// sizes and encode costs in the benchmarks match what the plugin sends on a device. Values the
+// embedding can't write (JSONObjects, non-String CharSequences, ...) throw here too.
+public class StandardMessageCodec implements MessageCodec<Object> {
+    public static final StandardMessageCodec INSTANCE = new StandardMessageCodec();
+
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+    private static final Charset UTF8 = Charset.forName("UTF8");
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte BIGINT = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte STRING = 7;
+    private static final byte BYTE_ARRAY = 8;
+    private static final byte INT_ARRAY = 9;
+    private static final byte LONG_ARRAY = 10;
+    private static final byte DOUBLE_ARRAY = 11;
+    private static final byte LIST = 12;
+    private static final byte MAP = 13;
+
+    @Override
+    public ByteBuffer encodeMessage(Object message) {
+        if (message == null) {
+            return null;
+        }
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writeValue(stream, message);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
+        buffer.put(stream.toByteArray());
+        return buffer;
+    }
+
+    @Override
+    public Object decodeMessage(ByteBuffer message) {
+        if (message == null) {
+            return null;
+        }
+        message.order(ByteOrder.nativeOrder());
+        Object value = readValue(message);
+        if (message.hasRemaining()) {
+            throw new IllegalArgumentException("Message corrupted");
+        }
+        return value;
+    }
+
+    protected static final void writeSize(ByteArrayOutputStream stream, int value) {
+        if (value < 254) {
+            stream.write(value);
+        } else if (value <= 0xffff) {
+            stream.write(254);
+            writeChar(stream, value);
+        } else {
+            stream.write(255);
+            writeInt(stream, value);
+        }
+    }
+
+    protected static final void writeChar(ByteArrayOutputStream stream, int value) {
+        if (LITTLE_ENDIAN) {
+            stream.write(value);
+            stream.write(value >>> 8);
+        } else {
+            stream.write(value >>> 8);
+            stream.write(value);
+        }
+    }
+
+    protected static final void writeInt(ByteArrayOutputStream stream, int value) {
+        if (LITTLE_ENDIAN) {
+            stream.write(value);
+            stream.write(value >>> 8);
+            stream.write(value >>> 16);
+            stream.write(value >>> 24);
+        } else {
+            stream.write(value >>> 24);
+            stream.write(value >>> 16);
+            stream.write(value >>> 8);
+            stream.write(value);
+        }
+    }
+
+    protected static final void writeLong(ByteArrayOutputStream stream, long value) {
+        if (LITTLE_ENDIAN) {
+            for (int shift = 0; shift < 64; shift += 8) {
+                stream.write((byte) (value >>> shift));
+            }
+        } else {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                stream.write((byte) (value >>> shift));
+            }
+        }
+    }
+
+    protected static final void writeDouble(ByteArrayOutputStream stream, double value) {
+        writeLong(stream, Double.doubleToLongBits(value));
+    }
+
+    protected static final void writeBytes(ByteArrayOutputStream stream, byte[] bytes) {
+        writeSize(stream, bytes.length);
+        stream.write(bytes, 0, bytes.length);
+    }
+
+    protected static final void writeAlignment(ByteArrayOutputStream stream, int alignment) {
+        int mod = stream.size() % alignment;
+        if (mod != 0) {
+            for (int i = 0; i < alignment - mod; i++) {
+                stream.write(0);
+            }
+        }
+    }
+
+    protected void writeValue(ByteArrayOutputStream stream, Object value) {
+        if (value == null || value.equals(null)) {
+            stream.write(NULL);
+        } else if (value instanceof Boolean) {
+            stream.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Number) {
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                stream.write(INT);
+                writeInt(stream, ((Number) value).intValue());
+            } else if (value instanceof Long) {
+                stream.write(LONG);
+                writeLong(stream, (long) value);
+            } else if (value instanceof Float || value instanceof Double) {
+                stream.write(DOUBLE);
+                writeAlignment(stream, 8);
+                writeDouble(stream, ((Number) value).doubleValue());
+            } else if (value instanceof BigInteger) {
+                stream.write(BIGINT);
+                writeBytes(stream, ((BigInteger) value).toString(16).getBytes(UTF8));
+            } else {
+                throw new IllegalArgumentException("Unsupported Number type: " + value.getClass());
+            }
+        } else if (value instanceof String) {
+            stream.write(STRING);
+            writeBytes(stream, ((String) value).getBytes(UTF8));
+        } else if (value instanceof byte[]) {
+            stream.write(BYTE_ARRAY);
+            writeBytes(stream, (byte[]) value);
+        } else if (value instanceof int[]) {
+            stream.write(INT_ARRAY);
+            int[] array = (int[]) value;
+            writeSize(stream, array.length);
+            writeAlignment(stream, 4);
+            for (int n : array) {
+                writeInt(stream, n);
+            }
+        } else if (value instanceof long[]) {
+            stream.write(LONG_ARRAY);
+            long[] array = (long[]) value;
+            writeSize(stream, array.length);
+            writeAlignment(stream, 8);
+            for (long n : array) {
+                writeLong(stream, n);
+            }
+        } else if (value instanceof double[]) {
+            stream.write(DOUBLE_ARRAY);
+            double[] array = (double[]) value;
+            writeSize(stream, array.length);
+            writeAlignment(stream, 8);
+            for (double d : array) {
+                writeDouble(stream, d);
+            }
+        } else if (value instanceof List) {
+            stream.write(LIST);
+            List<?> list = (List<?>) value;
+            writeSize(stream, list.size());
+            for (Object o : list) {
+                writeValue(stream, o);
+            }
+        } else if (value instanceof Map) {
+            stream.write(MAP);
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeSize(stream, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(stream, entry.getKey());
+                writeValue(stream, entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value: '" + value + "' of type '" + value.getClass() + "'");
+        }
+    }
+
+    protected static final int readSize(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Message corrupted");
+        }
+        int value = buffer.get() & 0xff;
+        if (value < 254) {
+            return value;
+        } else if (value == 254) {
+            return buffer.getChar();
+        } else {
+            return buffer.getInt();
+        }
+    }
+
+    protected static final byte[] readBytes(ByteBuffer buffer) {
+        int length = readSize(buffer);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    protected static final void readAlignment(ByteBuffer buffer, int alignment) {
+        int mod = buffer.position() % alignment;
+        if (mod != 0) {
+            buffer.position(buffer.position() + alignment - mod);
+        }
+    }
+
+    protected final Object readValue(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Message corrupted");
+        }
+        byte type = buffer.get();
+        return readValueOfType(type, buffer);
+    }
+
+    protected Object readValueOfType(byte type, ByteBuffer buffer) {
+        switch (type) {
+            case NULL:
+                return null;
+            case TRUE:
+                return true;
+            case FALSE:
+                return false;
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case BIGINT:
+                return new BigInteger(new String(readBytes(buffer), UTF8), 16);
+            case DOUBLE:
+                readAlignment(buffer, 8);
+                return buffer.getDouble();
+            case STRING:
+                return new String(readBytes(buffer), UTF8);
+            case BYTE_ARRAY:
+                return readBytes(buffer);
+            case INT_ARRAY: {
+                int length = readSize(buffer);
+                int[] array = new int[length];
+                readAlignment(buffer, 4);
+                buffer.asIntBuffer().get(array);
+                buffer.position(buffer.position() + 4 * length);
+                return array;
+            }
+            case LONG_ARRAY: {
+                int length = readSize(buffer);
+                long[] array = new long[length];
+                readAlignment(buffer, 8);
+                buffer.asLongBuffer().get(array);
+                buffer.position(buffer.position() + 8 * length);
+                return array;
+            }
+            case DOUBLE_ARRAY: {
+                int length = readSize(buffer);
+                double[] array = new double[length];
+                readAlignment(buffer, 8);
+                buffer.asDoubleBuffer().get(array);
+                buffer.position(buffer.position() + 8 * length);
+                return array;
+            }
+            case LIST: {
+                int size = readSize(buffer);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buffer));
+                }
+                return list;
+            }
+            case MAP: {
+                int size = readSize(buffer);
+                Map<Object, Object> map = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(buffer), readValue(buffer));
+                }
+                return map;
+            }
+            default:
+                throw new IllegalArgumentException("Message corrupted");
+        }
+    }
+}
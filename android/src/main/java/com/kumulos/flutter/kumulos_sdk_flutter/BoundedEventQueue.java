@@ -0,0 +1,184 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed-capacity ring buffer for events waiting on a Dart listener. Not thread safe, callers are
+// expected to guard access (see QueueingEventStreamHandler).
+/** package */ class BoundedEventQueue {
+
+    static final int DEFAULT_CAPACITY = 100;
+
+    enum OverflowPolicy {
+        DROP_OLDEST,
+        DROP_NEWEST,
+        COALESCE_BY_TYPE;
+
+        @Nullable
+        static OverflowPolicy fromConfigValue(@Nullable String value) {
+            if ("drop-oldest".equals(value)) {
+                return DROP_OLDEST;
+            } else if ("drop-newest".equals(value)) {
+                return DROP_NEWEST;
+            } else if ("coalesce-by-type".equals(value)) {
+                return COALESCE_BY_TYPE;
+            }
+            return null;
+        }
+    }
+
+    private Object[] events;
+    private long[] enqueuedAt;
+    private OverflowPolicy overflowPolicy;
+    private int head;
+    private int size;
+
+    BoundedEventQueue(int capacity, @NonNull OverflowPolicy overflowPolicy) {
+        this.events = new Object[Math.max(1, capacity)];
+        this.enqueuedAt = new long[events.length];
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Resizes the buffer, keeping the newest events if it shrinks
+     */
+    void configure(int capacity, @NonNull OverflowPolicy overflowPolicy) {
+        Object[] resized = new Object[Math.max(1, capacity)];
+        long[] resizedEnqueuedAt = new long[resized.length];
+        int kept = Math.min(size, resized.length);
+        int skipped = size - kept;
+
+        for (int i = 0; i < kept; ++i) {
+            int index = (head + skipped + i) % events.length;
+            resized[i] = events[index];
+            resizedEnqueuedAt[i] = enqueuedAt[index];
+        }
+
+        this.events = resized;
+        this.enqueuedAt = resizedEnqueuedAt;
+        this.overflowPolicy = overflowPolicy;
+        this.head = 0;
+        this.size = kept;
+    }
+
+    /**
+     * @return the event dropped to apply the overflow policy (which may be the offered event), or
+     * null if the event was queued without dropping any
+     */
+    @Nullable
+    Object offer(@NonNull Object event, long enqueuedAtNanos) {
+        if (size < events.length) {
+            append(event, enqueuedAtNanos);
+            return null;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_NEWEST:
+                return event;
+            case COALESCE_BY_TYPE:
+                int index = indexOfType(BridgeMetrics.eventType(event));
+                if (index >= 0) {
+                    Object coalesced = removeAt(index);
+                    append(event, enqueuedAtNanos);
+                    return coalesced;
+                }
+                // Fall back to dropping the oldest when there's nothing to coalesce with
+                return replaceOldest(event, enqueuedAtNanos);
+            case DROP_OLDEST:
+            default:
+                return replaceOldest(event, enqueuedAtNanos);
+        }
+    }
+
+    /**
+     * @return when the event at the head of the queue was enqueued, or 0 if empty
+     */
+    long peekEnqueuedAt() {
+        return 0 == size ? 0 : enqueuedAt[head];
+    }
+
+    @Nullable
+    Object poll() {
+        if (0 == size) {
+            return null;
+        }
+
+        Object event = events[head];
+        events[head] = null;
+        head = (head + 1) % events.length;
+        size--;
+        return event;
+    }
+
+    /**
+     * The queued events, oldest first
+     */
+    @NonNull
+    List<Object> snapshot() {
+        List<Object> snapshot = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            snapshot.add(events[(head + i) % events.length]);
+        }
+        return snapshot;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; ++i) {
+            events[(head + i) % events.length] = null;
+        }
+        head = 0;
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return events.length;
+    }
+
+    private int indexOfType(@Nullable Object type) {
+        if (null == type) {
+            return -1;
+        }
+
+        for (int i = 0; i < size; ++i) {
+            if (type.equals(BridgeMetrics.eventType(events[(head + i) % events.length]))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void append(@NonNull Object event, long enqueuedAtNanos) {
+        int tail = (head + size) % events.length;
+        events[tail] = event;
+        enqueuedAt[tail] = enqueuedAtNanos;
+        size++;
+    }
+
+    @NonNull
+    private Object replaceOldest(@NonNull Object event, long enqueuedAtNanos) {
+        Object oldest = events[head];
+        events[head] = event;
+        enqueuedAt[head] = enqueuedAtNanos;
+        head = (head + 1) % events.length;
+        return oldest;
+    }
+
+    @NonNull
+    private Object removeAt(int index) {
+        Object removed = events[(head + index) % events.length];
+        for (int i = index; i < size - 1; ++i) {
+            events[(head + i) % events.length] = events[(head + i + 1) % events.length];
+            enqueuedAt[(head + i) % events.length] = enqueuedAt[(head + i + 1) % events.length];
+        }
+        events[(head + size - 1) % events.length] = null;
+        size--;
+        return removed;
+    }
+}
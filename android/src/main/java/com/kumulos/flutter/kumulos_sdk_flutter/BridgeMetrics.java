@@ -0,0 +1,209 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Call counts, latency histograms & outcome counts per method channel call, and counts & queue delays per event
+// type. Recording only touches atomics in fixed buckets (after the first record of a given name),
+// so it stays on in release builds.
+/** package */ class BridgeMetrics {
+
+    // Inclusive upper bounds of each bucket, anything slower lands in a final overflow bucket
+    private static final long[] BUCKET_BOUNDS_NANOS = {
+            50_000L,
+            100_000L,
+            250_000L,
+            500_000L,
+            1_000_000L,
+            2_500_000L,
+            5_000_000L,
+            10_000_000L,
+            25_000_000L,
+            50_000_000L,
+            100_000_000L,
+            250_000_000L,
+            500_000_000L,
+            1_000_000_000L,
+    };
+
+    enum Outcome {
+        SUCCESS("success"),
+        ERROR("error"),
+        NOT_IMPLEMENTED("notImplemented");
+
+        final String key;
+
+        Outcome(@NonNull String key) {
+            this.key = key;
+        }
+    }
+
+    private static final ConcurrentHashMap<String, Histogram> methodLatencies = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Histogram> eventQueueDelays = new ConcurrentHashMap<>();
+
+    private static final String PUSH_OPENED_EVENT = "push.opened";
+    private static final AtomicLong pushOpenedAt = new AtomicLong();
+    private static final Histogram pushOpenToDelivery = new Histogram();
+
+    private BridgeMetrics() {
+    }
+
+    static void recordMethodCall(@NonNull String method, long durationNanos, @NonNull Outcome outcome) {
+        Histogram histogram = histogramFor(methodLatencies, method);
+        histogram.record(durationNanos);
+        histogram.recordOutcome(outcome);
+    }
+
+    /**
+     * Records delivery of an event to a Dart sink, along with how long it waited to be delivered
+     */
+    static void recordEventDelivered(@Nullable Object event, long queueDelayNanos) {
+        String type = eventType(event);
+        histogramFor(eventQueueDelays, null != type ? type : "unknown").record(queueDelayNanos);
+
+        if (PUSH_OPENED_EVENT.equals(type)) {
+            long openedAt = pushOpenedAt.getAndSet(0);
+            if (0 != openedAt) {
+                pushOpenToDelivery.record(System.nanoTime() - openedAt);
+            }
+        }
+    }
+
+    /**
+     * Marks the start of push open handling (i.e. the user's tap). The time until the resulting
+     * event reaches Dart is recorded on delivery. Only the latest open is tracked at a time.
+     */
+    static void markPushOpened() {
+        pushOpenedAt.set(System.nanoTime());
+    }
+
+    @Nullable
+    static String eventType(@Nullable Object event) {
+        if (event instanceof Map) {
+            Object type = ((Map<?, ?>) event).get("type");
+            return type instanceof String ? (String) type : null;
+        }
+        return null;
+    }
+
+    @NonNull
+    static Map<String, Object> snapshot() {
+        List<Long> bounds = new ArrayList<>(BUCKET_BOUNDS_NANOS.length);
+        for (long bound : BUCKET_BOUNDS_NANOS) {
+            bounds.add(bound);
+        }
+
+        Map<String, Object> metrics = new HashMap<>(4);
+        metrics.put("bucketBoundsNanos", bounds);
+        metrics.put("methods", snapshotAll(methodLatencies));
+        metrics.put("eventQueueDelays", snapshotAll(eventQueueDelays));
+        metrics.put("pushOpenToDelivery", pushOpenToDelivery.snapshot());
+        return metrics;
+    }
+
+    static void reset() {
+        for (Histogram histogram : methodLatencies.values()) {
+            histogram.reset();
+        }
+        for (Histogram histogram : eventQueueDelays.values()) {
+            histogram.reset();
+        }
+        pushOpenToDelivery.reset();
+    }
+
+    @NonNull
+    private static Histogram histogramFor(@NonNull ConcurrentHashMap<String, Histogram> histograms, @NonNull String name) {
+        Histogram histogram = histograms.get(name);
+        if (null != histogram) {
+            return histogram;
+        }
+
+        Histogram created = new Histogram();
+        Histogram existing = histograms.putIfAbsent(name, created);
+        return null != existing ? existing : created;
+    }
+
+    @NonNull
+    private static Map<String, Object> snapshotAll(@NonNull ConcurrentHashMap<String, Histogram> histograms) {
+        Map<String, Object> snapshot = new HashMap<>((int) (histograms.size() / 0.75f) + 1);
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return snapshot;
+    }
+
+    private static class Histogram {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_NANOS.length + 1);
+        // Only recorded for method calls
+        private final AtomicLongArray outcomes = new AtomicLongArray(Outcome.values().length);
+
+        void record(long nanos) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_NANOS.length && nanos > BUCKET_BOUNDS_NANOS[bucket]) {
+                bucket++;
+            }
+
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+
+            long max;
+            do {
+                max = maxNanos.get();
+            } while (nanos > max && !maxNanos.compareAndSet(max, nanos));
+        }
+
+        void recordOutcome(@NonNull Outcome outcome) {
+            outcomes.incrementAndGet(outcome.ordinal());
+        }
+
+        void reset() {
+            count.set(0);
+            totalNanos.set(0);
+            maxNanos.set(0);
+            for (int i = 0; i < buckets.length(); ++i) {
+                buckets.set(i, 0);
+            }
+            for (int i = 0; i < outcomes.length(); ++i) {
+                outcomes.set(i, 0);
+            }
+        }
+
+        @NonNull
+        Map<String, Object> snapshot() {
+            List<Long> bucketCounts = new ArrayList<>(buckets.length());
+            for (int i = 0; i < buckets.length(); ++i) {
+                bucketCounts.add(buckets.get(i));
+            }
+
+            Map<String, Object> snapshot = new HashMap<>(7);
+            snapshot.put("count", count.get());
+            snapshot.put("totalNanos", totalNanos.get());
+            snapshot.put("maxNanos", maxNanos.get());
+            snapshot.put("buckets", bucketCounts);
+
+            Map<String, Object> outcomeCounts = new HashMap<>(4);
+            for (Outcome outcome : Outcome.values()) {
+                long outcomeCount = outcomes.get(outcome.ordinal());
+                if (0 != outcomeCount) {
+                    outcomeCounts.put(outcome.key, outcomeCount);
+                }
+            }
+            if (!outcomeCounts.isEmpty()) {
+                snapshot.put("outcomes", outcomeCounts);
+            }
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.content.Context;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import io.flutter.embedding.engine.FlutterEngine;
+import io.flutter.embedding.engine.FlutterEngineCache;
+import io.flutter.embedding.engine.dart.DartExecutor;
+
+// Starts a FlutterEngine running the app's main entrypoint ahead of any UI, and registers it in the
+// FlutterEngineCache. Dart handlers get set & start listening without waiting for an activity, so
+// events from a push open or deep link are delivered as soon as they're sent. The app's activity
+// must adopt the cached engine, see the README. Skipped once any engine has attached the plugin, as
+// a second engine would run main() again.
+/** package */ class EnginePrewarmer {
+    private static final String TAG = EnginePrewarmer.class.getName();
+
+    private static volatile boolean enabled = false;
+
+    private EnginePrewarmer() {
+    }
+
+    static void setEnabled(boolean enabled) {
+        EnginePrewarmer.enabled = enabled;
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Prewarms the engine once the main thread goes idle, so launch work isn't held up.
+     * Must be called on the main thread.
+     */
+    static void prewarmWhenIdle(@NonNull Context context) {
+        if (!enabled) {
+            return;
+        }
+
+        final Context appContext = context.getApplicationContext();
+        Looper.myQueue().addIdleHandler(() -> {
+            prewarm(appContext);
+            return false;
+        });
+    }
+
+    /**
+     * Must be called on the main thread. Does nothing if the engine is already cached, or another
+     * engine is already running.
+     */
+    static void prewarm(@NonNull Context context) {
+        if (!enabled) {
+            return;
+        }
+
+        FlutterEngineCache cache = FlutterEngineCache.getInstance();
+        if (cache.contains(KumulosSdkFlutterPlugin.CACHED_ENGINE_ID) || KumulosSdkFlutterPlugin.isAttachedToEngine()) {
+            return;
+        }
+
+        Tracing.begin("Kumulos.prewarmEngine");
+        try {
+            // Plugins (incl. this one) are registered automatically by the engine
+            FlutterEngine engine = new FlutterEngine(context.getApplicationContext());
+            engine.getDartExecutor().executeDartEntrypoint(DartExecutor.DartEntrypoint.createDefault());
+            cache.put(KumulosSdkFlutterPlugin.CACHED_ENGINE_ID, engine);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to prewarm the Flutter engine", e);
+        } finally {
+            Tracing.end();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Append-only journal of events waiting on a Dart listener, so they survive the process being
+// killed before the Flutter engine starts. Each record is a 4-byte big-endian length followed by
+// the event as UTF-8 JSON. Writes aren't synced to disk: a killed process still leaves them in the
+// OS page cache, which is the case this journal covers. Not thread safe, callers guard access.
+/** package */ class EventJournal {
+
+    private static final String TAG = EventJournal.class.getName();
+    private static final String FILE_NAME = "kumulos_pending_events.journal";
+    private static final int HEADER_BYTES = 4;
+    static final int MAX_RECORD_BYTES = 1024 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private FileOutputStream out;
+
+    EventJournal(@NonNull File file) {
+        this.file = file;
+    }
+
+    @NonNull
+    static EventJournal forContext(@NonNull Context context) {
+        File dir;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            dir = context.getNoBackupFilesDir();
+        } else {
+            dir = context.getFilesDir();
+        }
+
+        return new EventJournal(new File(dir, FILE_NAME));
+    }
+
+    /**
+     * Reads back every complete record. A record cut short by the process dying mid-write is ignored,
+     * as is everything from a record whose length is implausible (e.g. a corrupted header) onwards.
+     */
+    @NonNull
+    List<Map<String, Object>> readAll() throws IOException {
+        List<Map<String, Object>> events = new ArrayList<>();
+
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        } catch (FileNotFoundException e) {
+            return events;
+        }
+
+        long remaining = file.length();
+        try {
+            while (true) {
+                int length = in.readInt();
+                remaining -= HEADER_BYTES;
+
+                if (length < 0 || length > MAX_RECORD_BYTES || length > remaining) {
+                    Log.w(TAG, "Ignoring journal records after invalid length " + length);
+                    break;
+                }
+
+                byte[] record = new byte[length];
+                in.readFully(record);
+                remaining -= length;
+
+                // Journaled events were converted once already, so the payload limits don't apply
+                JSONObject event = new JSONObject(new String(record, UTF_8));
+                events.add(JsonUtils.toMap(event, JsonUtils.UNLIMITED, JsonUtils.UNLIMITED));
+            }
+        } catch (EOFException e) {
+            /* Noop, end of journal */
+        } catch (JSONException e) {
+            e.printStackTrace();
+        } finally {
+            in.close();
+        }
+
+        return events;
+    }
+
+    void append(@NonNull Map<String, Object> event) throws IOException, JSONException {
+        byte[] record = encodeRecord(event);
+
+        if (null == out) {
+            out = new FileOutputStream(file, true);
+        }
+
+        // Single write so a record is never interleaved with another
+        out.write(record);
+    }
+
+    /**
+     * Replaces the journal with just the given events, e.g. once queued events have been dropped.
+     * The new journal is written alongside and renamed over the old one, so a process death
+     * part way through leaves the previous journal intact.
+     */
+    void rewrite(@NonNull List<Map<String, Object>> events) throws IOException, JSONException {
+        File compacted = new File(file.getPath() + ".tmp");
+        FileOutputStream compactedOut = new FileOutputStream(compacted);
+        try {
+            for (Map<String, Object> event : events) {
+                try {
+                    compactedOut.write(encodeRecord(event));
+                } catch (IOException e) {
+                    // Too large to journal, so it was never appended either
+                    Log.w(TAG, "Not journaling event", e);
+                }
+            }
+        } finally {
+            compactedOut.close();
+        }
+
+        if (null != out) {
+            out.close();
+            out = null;
+        }
+
+        if (!compacted.renameTo(file)) {
+            throw new IOException("Unable to replace " + file);
+        }
+    }
+
+    void truncate() throws IOException {
+        if (null != out) {
+            out.close();
+            out = null;
+        }
+
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Unable to truncate " + file);
+        }
+    }
+
+    @NonNull
+    private static byte[] encodeRecord(@NonNull Map<String, Object> event) throws IOException, JSONException {
+        byte[] payload = JsonUtils.toJsonObject(event).toString().getBytes(UTF_8);
+        if (payload.length > MAX_RECORD_BYTES) {
+            throw new IOException("Event of " + payload.length + " bytes is too large to journal");
+        }
+
+        byte[] record = new byte[HEADER_BYTES + payload.length];
+        record[0] = (byte) (payload.length >>> 24);
+        record[1] = (byte) (payload.length >>> 16);
+        record[2] = (byte) (payload.length >>> 8);
+        record[3] = (byte) payload.length;
+        System.arraycopy(payload, 0, record, HEADER_BYTES, payload.length);
+
+        return record;
+    }
+}
@@ -0,0 +1,225 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.kumulos.android.InAppInboxItem;
+import com.kumulos.android.KumulosInApp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Holds the last inbox read from the SDK along with an id index, so single-item operations
+// don't need to re-read & scan the whole inbox. Invalidated whenever the SDK reports an inbox update.
+//
+// Also tracks the revision at which each item last changed (or was removed) so callers can fetch
+// only the items that changed since a revision they already hold.
+//
+// Only one read of the inbox is in flight at a time, concurrent callers wait for & share its result.
+/** package */ class InAppInboxCache {
+
+    interface Loader {
+        @NonNull
+        List<InAppInboxItem> load(@NonNull Context context);
+    }
+
+    static class Snapshot {
+        final int revision;
+        final List<InAppInboxItem> items;
+        final Map<Integer, InAppInboxItem> itemsById;
+
+        Snapshot(int revision, List<InAppInboxItem> items, Map<Integer, InAppInboxItem> itemsById) {
+            this.revision = revision;
+            this.items = items;
+            this.itemsById = itemsById;
+        }
+    }
+
+    static class Changes {
+        final int revision;
+        final boolean reset;
+        final List<InAppInboxItem> items;
+        final List<Integer> removedIds;
+
+        Changes(int revision, boolean reset, List<InAppInboxItem> items, List<Integer> removedIds) {
+            this.revision = revision;
+            this.reset = reset;
+            this.items = items;
+            this.removedIds = removedIds;
+        }
+    }
+
+    // Once this many removals are tracked, they are forgotten and older clients get a full reset
+    private static final int MAX_TRACKED_REMOVALS = 1000;
+
+    private final Loader loader;
+
+    private int revision;
+    private Snapshot snapshot;
+    private boolean loading;
+
+    private int baseRevision = -1;
+    private Map<Integer, InAppInboxItem> trackedItems;
+    private final Map<Integer, Integer> changedAt = new HashMap<>();
+    private final Map<Integer, Integer> removedAt = new HashMap<>();
+
+    InAppInboxCache() {
+        this(KumulosInApp::getInboxItems);
+    }
+
+    InAppInboxCache(@NonNull Loader loader) {
+        this.loader = loader;
+    }
+
+    @NonNull
+    Snapshot getSnapshot(@NonNull Context context) {
+        int loadRevision;
+        boolean interrupted = false;
+        synchronized (this) {
+            while (null == snapshot && loading) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (null != snapshot) {
+                return snapshot;
+            }
+
+            loading = true;
+            loadRevision = revision;
+        }
+
+        Snapshot loaded = null;
+        try {
+            List<InAppInboxItem> items = loader.load(context);
+            Map<Integer, InAppInboxItem> itemsById = new HashMap<>((int) (items.size() / 0.75f) + 1);
+            for (InAppInboxItem item : items) {
+                itemsById.put(item.getId(), item);
+            }
+
+            loaded = new Snapshot(loadRevision, Collections.unmodifiableList(items), itemsById);
+        } finally {
+            synchronized (this) {
+                loading = false;
+                // Only keep the result if no update arrived while we were reading
+                if (null != loaded && loadRevision == revision) {
+                    snapshot = loaded;
+                    trackChanges(loaded);
+                }
+                notifyAll();
+            }
+        }
+
+        return loaded;
+    }
+
+    @NonNull
+    List<InAppInboxItem> getItems(@NonNull Context context) {
+        return getSnapshot(context).items;
+    }
+
+    @Nullable
+    InAppInboxItem getItem(@NonNull Context context, int id) {
+        return getSnapshot(context).itemsById.get(id);
+    }
+
+    @NonNull
+    Changes getChanges(@NonNull Context context, int sinceRevision) {
+        Snapshot current = getSnapshot(context);
+
+        synchronized (this) {
+            boolean reset = sinceRevision < baseRevision
+                    || sinceRevision > current.revision
+                    || trackedItems != current.itemsById;
+
+            if (reset) {
+                return new Changes(current.revision, true, current.items, Collections.<Integer>emptyList());
+            }
+
+            List<InAppInboxItem> items = new ArrayList<>();
+            for (InAppInboxItem item : current.items) {
+                Integer changedRevision = changedAt.get(item.getId());
+                if (null != changedRevision && changedRevision > sinceRevision) {
+                    items.add(item);
+                }
+            }
+
+            List<Integer> removedIds = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> entry : removedAt.entrySet()) {
+                if (entry.getValue() > sinceRevision) {
+                    removedIds.add(entry.getKey());
+                }
+            }
+
+            return new Changes(current.revision, false, items, removedIds);
+        }
+    }
+
+    synchronized void invalidate() {
+        revision++;
+        snapshot = null;
+    }
+
+    private void trackChanges(@NonNull Snapshot loaded) {
+        if (null == trackedItems) {
+            baseRevision = loaded.revision;
+            trackedItems = loaded.itemsById;
+            for (Integer id : loaded.itemsById.keySet()) {
+                changedAt.put(id, loaded.revision);
+            }
+            return;
+        }
+
+        for (InAppInboxItem item : loaded.items) {
+            InAppInboxItem previous = trackedItems.get(item.getId());
+            if (null == previous || !hasSameContent(previous, item)) {
+                changedAt.put(item.getId(), loaded.revision);
+            }
+            removedAt.remove(item.getId());
+        }
+
+        for (Integer id : trackedItems.keySet()) {
+            if (!loaded.itemsById.containsKey(id)) {
+                changedAt.remove(id);
+                removedAt.put(id, loaded.revision);
+            }
+        }
+
+        if (removedAt.size() > MAX_TRACKED_REMOVALS) {
+            removedAt.clear();
+            baseRevision = loaded.revision;
+        }
+
+        trackedItems = loaded.itemsById;
+    }
+
+    private static boolean hasSameContent(@NonNull InAppInboxItem a, @NonNull InAppInboxItem b) {
+        return a.isRead() == b.isRead()
+                && areEqual(a.getTitle(), b.getTitle())
+                && areEqual(a.getSubtitle(), b.getSubtitle())
+                && areEqual(a.getSentAt(), b.getSentAt())
+                && areEqual(a.getAvailableFrom(), b.getAvailableFrom())
+                && areEqual(a.getAvailableTo(), b.getAvailableTo())
+                && areEqual(a.getDismissedAt(), b.getDismissedAt())
+                && areEqual(a.getImageUrl(), b.getImageUrl())
+                && areEqual(
+                        null != a.getData() ? a.getData().toString() : null,
+                        null != b.getData() ? b.getData().toString() : null);
+    }
+
+    private static boolean areEqual(@Nullable Object a, @Nullable Object b) {
+        return (a == b) || (null != a && a.equals(b));
+    }
+}
@@ -0,0 +1,206 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.kumulos.android.KumulosInApp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.plugin.common.MethodChannel.Result;
+
+// Inbox total & unread counts, seeded from the SDK on first request and then kept up to date by
+// the plugin's own inbox mutations. Recomputed from the SDK whenever it reports an inbox update,
+// which corrects any drift. Changes are pushed to Dart as summary.changed events.
+/** package */ class InAppInboxSummaryCache {
+
+    static final int UNKNOWN = -1;
+
+    interface SummarySource {
+        /**
+         * Reads the summary asynchronously, calling back with UNKNOWN counts if it can't be read
+         */
+        void load(@NonNull Context context, @NonNull SummaryCallback callback);
+    }
+
+    interface SummaryCallback {
+        void onLoaded(int totalCount, int unreadCount);
+    }
+
+    interface ChangeListener {
+        void onSummaryChanged(@NonNull Map<String, Object> summary);
+    }
+
+    private final SummarySource source;
+    private final ChangeListener changeListener;
+
+    private int totalCount = UNKNOWN;
+    private int unreadCount = UNKNOWN;
+
+    // Bumped by every local change, so a recompute that raced with one is retried
+    private int generation;
+    private boolean refreshing;
+    private final List<Result> waiting = new ArrayList<>();
+
+    InAppInboxSummaryCache() {
+        this(InAppInboxSummaryCache::loadFromSdk, InAppInboxSummaryCache::sendChangedEvent);
+    }
+
+    InAppInboxSummaryCache(@NonNull SummarySource source, @NonNull ChangeListener changeListener) {
+        this.source = source;
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Replies with the cached summary, reading it from the SDK only if not yet seeded
+     */
+    void get(@NonNull Context context, @NonNull Result result) {
+        Map<String, Object> summary;
+        synchronized (this) {
+            if (UNKNOWN == totalCount) {
+                waiting.add(result);
+                if (!refreshing) {
+                    refresh(context);
+                }
+                return;
+            }
+            summary = toMap();
+        }
+
+        result.success(summary);
+    }
+
+    void onInboxUpdated(@NonNull Context context) {
+        synchronized (this) {
+            // Nothing to maintain until somebody asks for a summary
+            if (UNKNOWN == totalCount && !refreshing) {
+                return;
+            }
+
+            generation++;
+            if (!refreshing) {
+                refresh(context);
+            }
+        }
+    }
+
+    void onMarkedAsRead(int unreadMarkedCount) {
+        if (0 == unreadMarkedCount) {
+            return;
+        }
+        applyChange(0, -unreadMarkedCount);
+    }
+
+    void onDeleted(int deletedCount, int unreadDeletedCount) {
+        if (0 == deletedCount) {
+            return;
+        }
+        applyChange(-deletedCount, -unreadDeletedCount);
+    }
+
+    void onAllMarkedAsRead() {
+        Map<String, Object> changed;
+        synchronized (this) {
+            generation++;
+            if (UNKNOWN == totalCount || 0 == unreadCount) {
+                return;
+            }
+            unreadCount = 0;
+            changed = toMap();
+        }
+
+        changeListener.onSummaryChanged(changed);
+    }
+
+    private void applyChange(int totalDelta, int unreadDelta) {
+        Map<String, Object> changed;
+        synchronized (this) {
+            generation++;
+            if (UNKNOWN == totalCount) {
+                return;
+            }
+            totalCount = Math.max(0, totalCount + totalDelta);
+            unreadCount = Math.max(0, Math.min(totalCount, unreadCount + unreadDelta));
+            changed = toMap();
+        }
+
+        changeListener.onSummaryChanged(changed);
+    }
+
+    // Must hold the lock
+    private void refresh(@NonNull Context context) {
+        refreshing = true;
+        final int refreshGeneration = generation;
+
+        source.load(context, (total, unread) -> onRefreshed(context, refreshGeneration, total, unread));
+    }
+
+    private void onRefreshed(@NonNull Context context, int refreshGeneration, int total, int unread) {
+        Map<String, Object> changed = null;
+        List<Result> replies;
+
+        synchronized (this) {
+            if (refreshGeneration != generation) {
+                refresh(context);
+                return;
+            }
+
+            refreshing = false;
+
+            if (UNKNOWN != total) {
+                boolean wasSeeded = UNKNOWN != totalCount;
+                if (wasSeeded && (total != totalCount || unread != unreadCount)) {
+                    changed = summaryMap(total, unread);
+                }
+                totalCount = total;
+                unreadCount = unread;
+            }
+
+            replies = new ArrayList<>(waiting);
+            waiting.clear();
+        }
+
+        Map<String, Object> summary = UNKNOWN != total ? summaryMap(total, unread) : null;
+        for (Result reply : replies) {
+            reply.success(summary);
+        }
+
+        if (null != changed) {
+            changeListener.onSummaryChanged(changed);
+        }
+    }
+
+    private static void loadFromSdk(@NonNull Context context, @NonNull SummaryCallback callback) {
+        KumulosInApp.getInboxSummaryAsync(context, summary -> {
+            if (null == summary) {
+                callback.onLoaded(UNKNOWN, UNKNOWN);
+                return;
+            }
+            callback.onLoaded(summary.getTotalCount(), summary.getUnreadCount());
+        });
+    }
+
+    private static void sendChangedEvent(@NonNull Map<String, Object> summary) {
+        Map<String, Object> event = new HashMap<>(2);
+        event.put("type", "summary.changed");
+        event.put("data", summary);
+        KumulosSdkFlutterPlugin.inAppEventSink.send(event);
+    }
+
+    @NonNull
+    private Map<String, Object> toMap() {
+        return summaryMap(totalCount, unreadCount);
+    }
+
+    @NonNull
+    private static Map<String, Object> summaryMap(int total, int unread) {
+        Map<String, Object> summary = new HashMap<>(2);
+        summary.put("totalCount", total);
+        summary.put("unreadCount", unread);
+        return summary;
+    }
+}
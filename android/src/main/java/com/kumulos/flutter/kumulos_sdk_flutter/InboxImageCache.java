@@ -0,0 +1,314 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.kumulos.android.InAppInboxItem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Downloads inbox item images to a size-bounded disk cache so Dart can render them from local
+// files. Files are named <item id>_<url hash>, least recently used files are evicted once the cache
+// exceeds its size limit, and files for items no longer in the inbox are removed on each prefetch.
+/** package */ class InboxImageCache {
+    private static final String TAG = InboxImageCache.class.getName();
+
+    interface ImageSource {
+        /**
+         * @return image URLs by item id for every inbox item, with null for items without an image
+         */
+        @NonNull
+        Map<Integer, URL> load(@NonNull Context context);
+    }
+
+    interface Downloader {
+        /**
+         * @return whether the image was saved to the file
+         */
+        boolean download(@NonNull URL url, @NonNull File file);
+    }
+
+    static final long DEFAULT_MAX_SIZE_BYTES = 20L * 1024 * 1024;
+
+    private static final String DIRECTORY_NAME = "kumulos_inbox_images";
+    private static final int TIMEOUT_MS = 15000;
+
+    private final ImageSource imageSource;
+    private final Downloader downloader;
+
+    private volatile boolean enabled = false;
+    private volatile long maxSizeBytes = DEFAULT_MAX_SIZE_BYTES;
+
+    // Item id -> cached file, loaded from disk by the first prefetch
+    private final Map<Integer, File> files = new ConcurrentHashMap<>();
+    private boolean indexed = false;
+    private final AtomicBoolean prefetchRequested = new AtomicBoolean(false);
+
+    // Downloads get their own thread so they never hold up bridge calls
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "kumulos-flutter-images"));
+
+    InboxImageCache() {
+        this(InboxImageCache::loadInboxImages, InboxImageCache::downloadOverHttp);
+    }
+
+    InboxImageCache(@NonNull ImageSource imageSource, @NonNull Downloader downloader) {
+        this.imageSource = imageSource;
+        this.downloader = downloader;
+    }
+
+    void configure(boolean enabled, long maxSizeBytes) {
+        this.enabled = enabled;
+        this.maxSizeBytes = Math.max(0, maxSizeBytes);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Safe to call from any thread, the inbox is read & images downloaded in the background
+     */
+    void prefetch(@NonNull Context context) {
+        if (!enabled) {
+            return;
+        }
+
+        prefetchRequested.set(true);
+        final Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            Tracing.begin("Kumulos.prefetchInboxImages");
+            try {
+                prefetchNow(appContext);
+            } finally {
+                Tracing.end();
+            }
+        });
+    }
+
+    /**
+     * Prefetches unless a prefetch has already been requested in this process, e.g. for reads
+     * of the inbox that happen before the SDK reports any update
+     */
+    void ensurePrefetched(@NonNull Context context) {
+        if (enabled && !prefetchRequested.get()) {
+            prefetch(context);
+        }
+    }
+
+    /**
+     * @return the cached image for the item, or null if it hasn't been downloaded
+     */
+    @Nullable
+    String getLocalPath(@NonNull InAppInboxItem item) {
+        return getLocalPath(item.getId(), item.getImageUrl());
+    }
+
+    @Nullable
+    String getLocalPath(int id, @Nullable URL url) {
+        if (!enabled || null == url) {
+            return null;
+        }
+
+        File file = files.get(id);
+        if (null == file || !file.getName().equals(fileName(id, url))) {
+            return null;
+        }
+
+        // Last modified doubles as the last access time for eviction
+        file.setLastModified(System.currentTimeMillis());
+        return file.getAbsolutePath();
+    }
+
+    void evict(int id) {
+        File file = files.remove(id);
+        if (null != file) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Downloads missing images on the calling thread
+     */
+    void prefetchNow(@NonNull Context context) {
+        Map<Integer, URL> images = imageSource.load(context);
+
+        File directory = new File(context.getCacheDir(), DIRECTORY_NAME);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return;
+        }
+
+        if (!indexed) {
+            index(directory);
+            indexed = true;
+        }
+
+        for (Map.Entry<Integer, URL> image : images.entrySet()) {
+            int id = image.getKey();
+            URL url = image.getValue();
+            if (null == url) {
+                evict(id);
+                continue;
+            }
+
+            File file = new File(directory, fileName(id, url));
+            if (file.exists()) {
+                files.put(id, file);
+                continue;
+            }
+
+            if (downloader.download(url, file)) {
+                File previous = files.put(id, file);
+                if (null != previous && !previous.equals(file)) {
+                    previous.delete();
+                }
+            }
+        }
+
+        for (Integer id : files.keySet()) {
+            if (!images.containsKey(id)) {
+                evict(id);
+            }
+        }
+
+        trim(directory);
+    }
+
+    private void index(@NonNull File directory) {
+        File[] existing = directory.listFiles();
+        if (null == existing) {
+            return;
+        }
+
+        for (File file : existing) {
+            String name = file.getName();
+            int separator = name.indexOf('_');
+            if (separator <= 0 || name.endsWith(".tmp")) {
+                file.delete();
+                continue;
+            }
+
+            try {
+                files.put(Integer.parseInt(name.substring(0, separator)), file);
+            } catch (NumberFormatException e) {
+                file.delete();
+            }
+        }
+    }
+
+    private void trim(@NonNull File directory) {
+        File[] cached = directory.listFiles();
+        if (null == cached) {
+            return;
+        }
+
+        long size = 0;
+        for (File file : cached) {
+            size += file.length();
+        }
+        if (size <= maxSizeBytes) {
+            return;
+        }
+
+        Arrays.sort(cached, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+
+        for (File file : cached) {
+            if (size <= maxSizeBytes) {
+                break;
+            }
+            size -= file.length();
+            files.values().remove(file);
+            file.delete();
+        }
+    }
+
+    @NonNull
+    private static Map<Integer, URL> loadInboxImages(@NonNull Context context) {
+        List<InAppInboxItem> items = KumulosSdkFlutterPlugin.inboxCache.getItems(context);
+        Map<Integer, URL> images = new LinkedHashMap<>((int) (items.size() / 0.75f) + 1);
+        for (InAppInboxItem item : items) {
+            images.put(item.getId(), item.getImageUrl());
+        }
+        return images;
+    }
+
+    static boolean downloadOverHttp(@NonNull URL url, @NonNull File file) {
+        File temp = new File(file.getPath() + ".tmp");
+        HttpURLConnection connection = null;
+        InputStream in = null;
+        OutputStream out = null;
+
+        try {
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(TIMEOUT_MS);
+            connection.setReadTimeout(TIMEOUT_MS);
+
+            if (HttpURLConnection.HTTP_OK != connection.getResponseCode()) {
+                return false;
+            }
+
+            in = connection.getInputStream();
+            out = new FileOutputStream(temp);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            out.close();
+            out = null;
+
+            return temp.renameTo(file);
+        } catch (IOException | ClassCastException e) {
+            Log.w(TAG, "Failed to download inbox image " + url, e);
+            return false;
+        } finally {
+            closeQuietly(in);
+            closeQuietly(out);
+            if (null != connection) {
+                connection.disconnect();
+            }
+            temp.delete();
+        }
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (null == closeable) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            /* Noop */
+        }
+    }
+
+    @NonNull
+    private static String fileName(int id, @NonNull URL url) {
+        return id + "_" + Integer.toHexString(url.toString().hashCode());
+    }
+}
@@ -0,0 +1,86 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.kumulos.android.InAppInboxItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Applies an SDK inbox change (mark as read, delete) to messages by id and keeps the plugin's
+// caches in step. A batch reads the inbox once and invalidates once, where per-message calls
+// re-read the whole inbox for every message after the first.
+/** package */ class InboxMutations {
+
+    interface Mutation {
+        boolean apply(@NonNull Context context, @NonNull InAppInboxItem item);
+    }
+
+    interface Listener {
+        /**
+         * Called once per call that changed anything, after the inbox cache is invalidated
+         */
+        void onMutated(@NonNull List<Integer> ids, int unreadCount);
+    }
+
+    private final InAppInboxCache inboxCache;
+    private final Mutation mutation;
+    private final Listener listener;
+
+    InboxMutations(@NonNull InAppInboxCache inboxCache, @NonNull Mutation mutation, @NonNull Listener listener) {
+        this.inboxCache = inboxCache;
+        this.mutation = mutation;
+        this.listener = listener;
+    }
+
+    boolean apply(@NonNull Context context, int id) {
+        InAppInboxItem item = inboxCache.getItem(context, id);
+        if (null == item) {
+            return false;
+        }
+
+        boolean wasUnread = !item.isRead();
+        if (!mutation.apply(context, item)) {
+            return false;
+        }
+
+        inboxCache.invalidate();
+        listener.onMutated(Collections.singletonList(id), wasUnread ? 1 : 0);
+        return true;
+    }
+
+    /**
+     * @return whether each message was changed, in the order of the ids
+     */
+    @NonNull
+    List<Boolean> applyBatch(@NonNull Context context, @NonNull List<Integer> ids) {
+        Map<Integer, InAppInboxItem> itemsById = inboxCache.getSnapshot(context).itemsById;
+
+        List<Boolean> results = new ArrayList<>(ids.size());
+        List<Integer> mutatedIds = new ArrayList<>(ids.size());
+        int unreadCount = 0;
+        for (Integer id : ids) {
+            InAppInboxItem item = itemsById.get(id);
+            boolean mutated = false;
+            if (null != item) {
+                boolean wasUnread = !item.isRead();
+                mutated = mutation.apply(context, item);
+                if (mutated) {
+                    mutatedIds.add(id);
+                    unreadCount += wasUnread ? 1 : 0;
+                }
+            }
+            results.add(mutated);
+        }
+
+        if (!mutatedIds.isEmpty()) {
+            inboxCache.invalidate();
+            listener.onMutated(mutatedIds, unreadCount);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,73 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import androidx.annotation.NonNull;
+
+import java.util.Date;
+
+// Formats dates as UTC ISO-8601 (yyyy-MM-dd'T'HH:mm:ss'Z'), matching the SimpleDateFormat pattern
+// previously used for inbox items. Thread safe, and only allocates the resulting String.
+/** package */ class IsoDateFormatter {
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    private static final ThreadLocal<char[]> buffers = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[20];
+        }
+    };
+
+    private IsoDateFormatter() {
+    }
+
+    @NonNull
+    static String format(@NonNull Date date) {
+        return format(date.getTime());
+    }
+
+    @NonNull
+    static String format(long epochMillis) {
+        long days = epochMillis / MILLIS_PER_DAY;
+        long millisOfDay = epochMillis % MILLIS_PER_DAY;
+        if (millisOfDay < 0) {
+            days--;
+            millisOfDay += MILLIS_PER_DAY;
+        }
+
+        // Civil date from days since epoch, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        int secondOfDay = (int) (millisOfDay / 1000);
+
+        char[] buf = buffers.get();
+        writeDigits(buf, 0, year, 4);
+        buf[4] = '-';
+        writeDigits(buf, 5, month, 2);
+        buf[7] = '-';
+        writeDigits(buf, 8, day, 2);
+        buf[10] = 'T';
+        writeDigits(buf, 11, secondOfDay / 3600, 2);
+        buf[13] = ':';
+        writeDigits(buf, 14, (secondOfDay / 60) % 60, 2);
+        buf[16] = ':';
+        writeDigits(buf, 17, secondOfDay % 60, 2);
+        buf[19] = 'Z';
+
+        return new String(buf);
+    }
+
+    private static void writeDigits(char[] buf, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; --i) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
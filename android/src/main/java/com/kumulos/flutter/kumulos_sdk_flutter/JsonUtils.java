@@ -3,50 +3,172 @@ package com.kumulos.flutter.kumulos_sdk_flutter;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-// Based on https://gist.github.com/codebutler/2339666
+// Converts org.json trees into plain maps & lists for the method channel codec.
+// Works iteratively with an explicit stack so deeply nested payloads can't overflow the thread
+// stack, and presizes every collection from the source length. Payloads nested beyond the depth
+// limit, or larger than the (optional) element limit, fail to convert.
 /** package */ class JsonUtils {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final int DEFAULT_MAX_DEPTH = 32;
+    static final int UNLIMITED = 0;
+
+    private static volatile int maxDepth = DEFAULT_MAX_DEPTH;
+    private static volatile int maxElements = UNLIMITED;
+
+    /**
+     * Limits applied by {@link #toMap(JSONObject)} & {@link #toList(JSONArray)}. A limit of 0 or
+     * less disables it.
+     */
+    static void setLimits(int maxDepth, int maxElements) {
+        JsonUtils.maxDepth = maxDepth;
+        JsonUtils.maxElements = maxElements;
+    }
 
     public static Map<String, Object> toMap(JSONObject object) throws JSONException {
-        Map<String, Object> map = new HashMap<>();
+        return toMap(object, maxDepth, maxElements);
+    }
 
-        Iterator<String> keysItr = object.keys();
-        while(keysItr.hasNext()) {
-            String key = keysItr.next();
-            Object value = object.get(key);
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> toMap(JSONObject object, int maxDepth, int maxElements) throws JSONException {
+        return (Map<String, Object>) convert(object, maxDepth, maxElements);
+    }
 
-            if(value instanceof JSONArray) {
-                value = toList((JSONArray) value);
-            }
+    public static List<Object> toList(JSONArray array) throws JSONException {
+        return toList(array, maxDepth, maxElements);
+    }
 
-            else if(value instanceof JSONObject) {
-                value = toMap((JSONObject) value);
+    @SuppressWarnings("unchecked")
+    public static List<Object> toList(JSONArray array, int maxDepth, int maxElements) throws JSONException {
+        return (List<Object>) convert(array, maxDepth, maxElements);
+    }
+
+    /**
+     * Converts plugin-built maps (e.g. queued events) back into JSON. Recursive, as these are shallow.
+     * Raw UTF-8 JSON payloads are embedded as the JSON they contain.
+     */
+    @SuppressWarnings("unchecked")
+    public static JSONObject toJsonObject(Map<String, Object> map) throws JSONException {
+        JSONObject object = new JSONObject();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            Object value = entry.getValue();
+
+            if (value instanceof Map) {
+                value = toJsonObject((Map<String, Object>) value);
+            } else if (value instanceof List) {
+                JSONArray array = new JSONArray();
+                for (Object item : (List<Object>) value) {
+                    array.put(item instanceof Map ? toJsonObject((Map<String, Object>) item) : item);
+                }
+                value = array;
+            } else if (value instanceof byte[]) {
+                value = new JSONTokener(new String((byte[]) value, UTF_8)).nextValue();
+            } else if (null == value) {
+                value = JSONObject.NULL;
             }
-            map.put(key, value);
+
+            object.put(entry.getKey(), value);
         }
-        return map;
+        return object;
     }
 
-    public static List<Object> toList(JSONArray array) throws JSONException {
-        List<Object> list = new ArrayList<>();
-        for(int i = 0; i < array.length(); i++) {
-            Object value = array.get(i);
-            if(value instanceof JSONArray) {
-                value = toList((JSONArray) value);
+    private static Object convert(Object root, int maxDepth, int maxElements) throws JSONException {
+        if (maxDepth <= UNLIMITED) {
+            maxDepth = Integer.MAX_VALUE;
+        }
+        if (maxElements <= UNLIMITED) {
+            maxElements = Integer.MAX_VALUE;
+        }
+
+        Frame rootFrame = new Frame(root, 1);
+        ArrayDeque<Frame> stack = new ArrayDeque<>();
+        stack.push(rootFrame);
+
+        int elements = 0;
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            if (!frame.hasNext()) {
+                stack.pop();
+                continue;
+            }
+
+            if (++elements > maxElements) {
+                throw new JSONException("JSON payload exceeds " + maxElements + " elements");
             }
 
-            else if(value instanceof JSONObject) {
-                value = toMap((JSONObject) value);
+            String key = frame.nextKey();
+            Object value = frame.valueFor(key);
+
+            if (value instanceof JSONObject || value instanceof JSONArray) {
+                if (frame.depth >= maxDepth) {
+                    throw new JSONException("JSON payload exceeds depth of " + maxDepth);
+                }
+
+                Frame child = new Frame(value, frame.depth + 1);
+                frame.add(key, child.target);
+                stack.push(child);
+            } else {
+                frame.add(key, value);
             }
-            list.add(value);
         }
-        return list;
+
+        return rootFrame.target;
     }
 
+    private static class Frame {
+        final int depth;
+        final Object target;
+
+        private final JSONObject object;
+        private final Iterator<String> keys;
+        private final JSONArray array;
+        private int index;
+
+        Frame(Object source, int depth) {
+            this.depth = depth;
+
+            if (source instanceof JSONObject) {
+                object = (JSONObject) source;
+                keys = object.keys();
+                array = null;
+                target = new HashMap<String, Object>((int) (object.length() / 0.75f) + 1);
+            } else {
+                object = null;
+                keys = null;
+                array = (JSONArray) source;
+                target = new ArrayList<>(array.length());
+            }
+        }
+
+        boolean hasNext() {
+            return null != keys ? keys.hasNext() : index < array.length();
+        }
+
+        String nextKey() {
+            return null != keys ? keys.next() : null;
+        }
+
+        Object valueFor(String key) throws JSONException {
+            return null != object ? object.get(key) : array.get(index++);
+        }
+
+        @SuppressWarnings("unchecked")
+        void add(String key, Object value) {
+            if (null != object) {
+                ((Map<String, Object>) target).put(key, value);
+            } else {
+                ((List<Object>) target).add(value);
+            }
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.util.JsonReader;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+
+// Opens the app's kumulos.json, preferring the copy baked in at build time (KumulosGeneratedConfig)
+// over reading the Flutter asset on the startup path
+/** package */ class KumulosConfigSource {
+
+    static final String ASSET_KEY = "flutter_assets" + File.separator + "kumulos.json";
+
+    interface AssetOpener {
+        @NonNull
+        InputStream open(@NonNull String key) throws IOException;
+    }
+
+    private KumulosConfigSource() {
+    }
+
+    /**
+     * @return a reader over the config, or null if there's no generated config and no asset
+     */
+    @Nullable
+    static JsonReader open(@Nullable String generatedJson, @NonNull AssetOpener assets) {
+        if (null != generatedJson) {
+            return new JsonReader(new StringReader(generatedJson));
+        }
+
+        InputStream is;
+        try {
+            is = assets.open(ASSET_KEY);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        try {
+            return new JsonReader(new InputStreamReader(is, "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.kumulos.flutter.kumulos_sdk_flutter;
 
+import android.app.Activity;
 import android.app.Application;
 import android.content.ContentProvider;
 import android.content.ContentValues;
+import android.content.Context;
 import android.content.res.AssetManager;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Looper;
 import android.text.TextUtils;
 import android.util.JsonReader;
 import android.util.JsonToken;
@@ -22,16 +27,12 @@ import com.kumulos.android.KumulosInApp;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.File;
+import java.io.BufferedReader;
+import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
 import java.util.Map;
 
-import io.flutter.plugin.common.EventChannel;
-
 public class KumulosInitProvider extends ContentProvider {
     private static final String TAG = KumulosInitProvider.class.getName();
 
@@ -46,45 +47,171 @@ public class KumulosInitProvider extends ContentProvider {
     private static final String IN_APP_AUTO_ENROLL = "auto-enroll";
     private static final String IN_APP_EXPLICIT_BY_USER = "explicit-by-user";
     private static final String KEY_ENABLE_DDL = "enableDeferredDeepLinking";
+    private static final String KEY_EVENT_QUEUE_CAPACITY = "eventQueueCapacity";
+    private static final String KEY_EVENT_QUEUE_OVERFLOW_POLICY = "eventQueueOverflowPolicy";
+    private static final String KEY_PERSIST_PENDING_EVENTS = "persistPendingEvents";
+    private static final String KEY_INBOX_UPDATE_COALESCE_WINDOW_MS = "inboxUpdateCoalesceWindowMs";
+    private static final String KEY_INIT_IN_MAIN_PROCESS_ONLY = "initInMainProcessOnly";
+    private static final String KEY_DEFER_INITIALIZATION = "deferInitialization";
+    private static final String KEY_LOG_STARTUP_METRICS = "logStartupMetrics";
+    private static final String KEY_ENABLE_TRACING = "enableTracing";
+    private static final String KEY_PREWARM_FLUTTER_ENGINE = "prewarmFlutterEngine";
+    private static final String KEY_LOCATION_MIN_DISTANCE_METERS = "locationMinDistanceMeters";
+    private static final String KEY_LOCATION_MIN_INTERVAL_MS = "locationMinIntervalMs";
+    private static final String KEY_LOCATION_FLUSH_INTERVAL_MS = "locationFlushIntervalMs";
+    private static final String KEY_PREFETCH_INBOX_IMAGES = "prefetchInboxImages";
+    private static final String KEY_INBOX_IMAGE_CACHE_SIZE_BYTES = "inboxImageCacheSizeBytes";
+    private static final String KEY_COMPACT_MESSAGE_CODEC = "compactMessageCodec";
+    private static final String KEY_RAW_JSON_PAYLOADS = "rawJsonPayloads";
+    private static final String KEY_JSON_MAX_DEPTH = "jsonMaxDepth";
+    private static final String KEY_JSON_MAX_ELEMENTS = "jsonMaxElements";
+
+    private static final Object initializationLock = new Object();
+    private static Runnable pendingInitialization;
+    private static InitializeOnActivityCreated pendingInitializationTrigger;
+
+    private boolean deferInitialization = false;
 
     @Override
     public boolean onCreate() {
+        StartupMetrics.mark(StartupMetrics.PROVIDER_CREATE_START);
+
         KumulosConfig.Builder config = null;
         try {
             config = tryReadConfig();
         } catch (IOException e) {
             e.printStackTrace();
+            StartupMetrics.mark(StartupMetrics.PROVIDER_CREATE_END);
             return true;
         }
         if (null == config) {
-            Log.i(TAG, "Skipping init, no config file found...");
+            StartupMetrics.mark(StartupMetrics.PROVIDER_CREATE_END);
             return true;
         }
 
         Application application = (Application) getContext().getApplicationContext();
+        final KumulosConfig.Builder sdkConfig = config;
+        Runnable initialization = () -> {
+            StartupMetrics.mark(StartupMetrics.INITIALIZE_START);
+
+            JSONObject runtimeInfo = new JSONObject();
+            JSONObject sdkInfo = new JSONObject();
+
+            try {
+                runtimeInfo.put("id", RUNTIME_TYPE);
+
+                // There's currently no API/const to retrieve the version of Flutter used
+                runtimeInfo.put("version", "unknown");
+                sdkInfo.put("id", SDK_TYPE);
+                sdkInfo.put("version", SDK_VERSION);
+            } catch (JSONException e) {
+                e.printStackTrace();
+            }
 
-        JSONObject runtimeInfo = new JSONObject();
-        JSONObject sdkInfo = new JSONObject();
+            sdkConfig.setRuntimeInfo(runtimeInfo);
+            sdkConfig.setSdkInfo(sdkInfo);
 
-        try {
-            runtimeInfo.put("id", RUNTIME_TYPE);
+            Kumulos.initialize(application, sdkConfig.build());
 
-            // There's currently no API/const to retrieve the version of Flutter used
-            runtimeInfo.put("version", "unknown");
-            sdkInfo.put("id", SDK_TYPE);
-            sdkInfo.put("version", SDK_VERSION);
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
+            StartupMetrics.mark(StartupMetrics.INITIALIZE_END);
+        };
 
-        config.setRuntimeInfo(runtimeInfo);
-        config.setSdkInfo(sdkInfo);
+        if (!deferInitialization) {
+            initialization.run();
+            EnginePrewarmer.prewarmWhenIdle(application);
+            StartupMetrics.mark(StartupMetrics.PROVIDER_CREATE_END);
+            return true;
+        }
 
-        Kumulos.initialize(application, config.build());
+        deferInitialization(application, initialization);
+        EnginePrewarmer.prewarmWhenIdle(application);
 
+        StartupMetrics.mark(StartupMetrics.PROVIDER_CREATE_END);
         return true;
     }
 
+    /**
+     * Holds the initialization until the main looper first idles, or an activity is created or a
+     * push arrives before then, so the SDK is initialized ahead of anything that needs it. This
+     * moves the work out of provider & Application startup only: an activity launch still runs it
+     * in the first onActivityCreated, ahead of that activity's first frame, as the SDK's own
+     * lifecycle tracking has to see the activity start.
+     */
+    static void deferInitialization(@NonNull Application application, @NonNull Runnable initialization) {
+        InitializeOnActivityCreated trigger = new InitializeOnActivityCreated(application);
+        synchronized (initializationLock) {
+            pendingInitialization = initialization;
+            pendingInitializationTrigger = trigger;
+        }
+        application.registerActivityLifecycleCallbacks(trigger);
+
+        // For launches without an activity, e.g. a push waking the process
+        Looper.myQueue().addIdleHandler(() -> {
+            ensureInitialized();
+            return false;
+        });
+    }
+
+    /**
+     * Runs any deferred SDK initialization now, blocking until it has completed.
+     * Callers about to use the SDK should call this first.
+     */
+    static void ensureInitialized() {
+        InitializeOnActivityCreated trigger;
+        synchronized (initializationLock) {
+            if (null == pendingInitialization) {
+                return;
+            }
+
+            Runnable initialization = pendingInitialization;
+            trigger = pendingInitializationTrigger;
+            pendingInitialization = null;
+            pendingInitializationTrigger = null;
+            initialization.run();
+        }
+
+        if (null != trigger) {
+            trigger.application.unregisterActivityLifecycleCallbacks(trigger);
+        }
+    }
+
+    private static class InitializeOnActivityCreated implements Application.ActivityLifecycleCallbacks {
+        final Application application;
+
+        InitializeOnActivityCreated(@NonNull Application application) {
+            this.application = application;
+        }
+
+        @Override
+        public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+            ensureInitialized();
+        }
+
+        @Override
+        public void onActivityStarted(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(@NonNull Activity activity) {
+        }
+    }
+
     @Nullable
     @Override
     public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection, @Nullable String[] selectionArgs, @Nullable String sortOrder) {
@@ -116,7 +243,9 @@ public class KumulosInitProvider extends ContentProvider {
     @Nullable
     private KumulosConfig.Builder tryReadConfig() throws IOException {
         JsonReader reader = getConfigReader();
+        StartupMetrics.mark(StartupMetrics.CONFIG_READ_END);
         if (null == reader) {
+            Log.i(TAG, "Skipping init, no config file found...");
             return null;
         }
 
@@ -126,6 +255,18 @@ public class KumulosInitProvider extends ContentProvider {
         String inAppConsentStrategy = null;
         boolean enableDeepLinking = false;
         String deepLinkingCname = null;
+        int eventQueueCapacity = BoundedEventQueue.DEFAULT_CAPACITY;
+        BoundedEventQueue.OverflowPolicy eventQueueOverflowPolicy = BoundedEventQueue.OverflowPolicy.DROP_OLDEST;
+        boolean persistPendingEvents = false;
+        long inboxUpdateCoalesceWindowMs = 0;
+        boolean initInMainProcessOnly = false;
+        double locationMinDistanceMeters = 0;
+        long locationMinIntervalMs = 0;
+        long locationFlushIntervalMs = 0;
+        boolean prefetchInboxImages = false;
+        long inboxImageCacheSizeBytes = InboxImageCache.DEFAULT_MAX_SIZE_BYTES;
+        int jsonMaxDepth = JsonUtils.DEFAULT_MAX_DEPTH;
+        int jsonMaxElements = JsonUtils.UNLIMITED;
 
         try {
             reader.beginObject();
@@ -150,11 +291,52 @@ public class KumulosInitProvider extends ContentProvider {
                     } else {
                         reader.skipValue();
                     }
+                } else if (name.equals(KEY_EVENT_QUEUE_CAPACITY)) {
+                    eventQueueCapacity = reader.nextInt();
+                } else if (name.equals(KEY_EVENT_QUEUE_OVERFLOW_POLICY)) {
+                    BoundedEventQueue.OverflowPolicy policy = BoundedEventQueue.OverflowPolicy.fromConfigValue(reader.nextString());
+                    if (null != policy) {
+                        eventQueueOverflowPolicy = policy;
+                    }
+                } else if (name.equals(KEY_PERSIST_PENDING_EVENTS)) {
+                    persistPendingEvents = reader.nextBoolean();
+                } else if (name.equals(KEY_INBOX_UPDATE_COALESCE_WINDOW_MS)) {
+                    inboxUpdateCoalesceWindowMs = reader.nextLong();
+                } else if (name.equals(KEY_INIT_IN_MAIN_PROCESS_ONLY)) {
+                    initInMainProcessOnly = reader.nextBoolean();
+                } else if (name.equals(KEY_DEFER_INITIALIZATION)) {
+                    deferInitialization = reader.nextBoolean();
+                } else if (name.equals(KEY_LOG_STARTUP_METRICS)) {
+                    StartupMetrics.setLogEnabled(reader.nextBoolean());
+                } else if (name.equals(KEY_ENABLE_TRACING)) {
+                    Tracing.setEnabled(reader.nextBoolean());
+                } else if (name.equals(KEY_PREWARM_FLUTTER_ENGINE)) {
+                    EnginePrewarmer.setEnabled(reader.nextBoolean());
+                } else if (name.equals(KEY_LOCATION_MIN_DISTANCE_METERS)) {
+                    locationMinDistanceMeters = reader.nextDouble();
+                } else if (name.equals(KEY_LOCATION_MIN_INTERVAL_MS)) {
+                    locationMinIntervalMs = reader.nextLong();
+                } else if (name.equals(KEY_LOCATION_FLUSH_INTERVAL_MS)) {
+                    locationFlushIntervalMs = reader.nextLong();
+                } else if (name.equals(KEY_PREFETCH_INBOX_IMAGES)) {
+                    prefetchInboxImages = reader.nextBoolean();
+                } else if (name.equals(KEY_INBOX_IMAGE_CACHE_SIZE_BYTES)) {
+                    inboxImageCacheSizeBytes = reader.nextLong();
+                } else if (name.equals(KEY_COMPACT_MESSAGE_CODEC)) {
+                    KumulosMessageCodec.setCompact(reader.nextBoolean());
+                } else if (name.equals(KEY_RAW_JSON_PAYLOADS)) {
+                    MessageMapper.setRawJsonPayloads(reader.nextBoolean());
+                } else if (name.equals(KEY_JSON_MAX_DEPTH)) {
+                    jsonMaxDepth = reader.nextInt();
+                } else if (name.equals(KEY_JSON_MAX_ELEMENTS)) {
+                    jsonMaxElements = reader.nextInt();
                 } else {
                     reader.skipValue();
                 }
             }
             reader.endObject();
+            JsonUtils.setLimits(jsonMaxDepth, jsonMaxElements);
+            StartupMetrics.mark(StartupMetrics.CONFIG_PARSE_END);
         } catch (IOException e) {
             e.printStackTrace();
             return null;
@@ -163,6 +345,12 @@ public class KumulosInitProvider extends ContentProvider {
         }
 
         if (TextUtils.isEmpty(apiKey) || TextUtils.isEmpty(secretKey)) {
+            Log.i(TAG, "Skipping init, no config file found...");
+            return null;
+        }
+
+        if (initInMainProcessOnly && !isMainProcess()) {
+            Log.i(TAG, "Skipping init, not running in the main process...");
             return null;
         }
 
@@ -171,6 +359,16 @@ public class KumulosInitProvider extends ContentProvider {
         KumulosConfig.Builder config = new KumulosConfig.Builder(apiKey, secretKey);
 
         Kumulos.setPushActionHandler(new PushReceiver.PushActionHandler());
+        KumulosSdkFlutterPlugin.eventSink.configureQueue(eventQueueCapacity, eventQueueOverflowPolicy);
+
+        if (persistPendingEvents) {
+            KumulosSdkFlutterPlugin.eventSink.configureJournal(EventJournal.forContext(getContext()));
+        }
+
+        KumulosSdkFlutterPlugin.inAppEventSink.setInboxUpdateCoalesceWindow(inboxUpdateCoalesceWindowMs);
+        KumulosSdkFlutterPlugin.locationPipeline.configure(
+                (float) locationMinDistanceMeters, locationMinIntervalMs, locationFlushIntervalMs);
+        KumulosSdkFlutterPlugin.inboxImageCache.configure(prefetchInboxImages, inboxImageCacheSizeBytes);
 
         if (enableCrashReporting) {
             config.enableCrashReporting();
@@ -184,6 +382,7 @@ public class KumulosInitProvider extends ContentProvider {
             configureDeepLinking(config, deepLinkingCname);
         }
 
+        StartupMetrics.mark(StartupMetrics.BUILDER_SETUP_END);
         return config;
     }
 
@@ -196,59 +395,66 @@ public class KumulosInitProvider extends ContentProvider {
 
         if (IN_APP_AUTO_ENROLL.equals(inAppConsentStrategy) || IN_APP_EXPLICIT_BY_USER.equals(inAppConsentStrategy)) {
             KumulosInApp.setDeepLinkHandler((context, data) -> {
-                Map<String, Object> event = new HashMap<>(2);
-                event.put("type", "in-app.deepLinkPressed");
+                Tracing.begin("Kumulos.inAppDeepLinkPressed");
                 try {
-                    event.put("data", JsonUtils.toMap(data));
-                } catch (JSONException e) {
-                    e.printStackTrace();
-                    return;
+                    Map<String, Object> event = new HashMap<>(2);
+                    event.put("type", "in-app.deepLinkPressed");
+                    event.put("data", MessageMapper.encodePayload(data));
+                    KumulosSdkFlutterPlugin.eventSink.send(event);
+                } finally {
+                    Tracing.end();
                 }
-                KumulosSdkFlutterPlugin.eventSink.send(event);
             });
+            final Context appContext = getContext().getApplicationContext();
             KumulosInApp.setOnInboxUpdated(() -> {
-                EventChannel.EventSink sink = KumulosSdkFlutterPlugin.inAppEventSink;
-
-                if (sink == null) {
-                    return;
+                Tracing.begin("Kumulos.inboxUpdated");
+                try {
+                    KumulosSdkFlutterPlugin.inboxCache.invalidate();
+                    KumulosSdkFlutterPlugin.inboxSummaryCache.onInboxUpdated(appContext);
+                    KumulosSdkFlutterPlugin.inboxImageCache.prefetch(appContext);
+                    KumulosSdkFlutterPlugin.inAppEventSink.notifyInboxUpdated();
+                } finally {
+                    Tracing.end();
                 }
-
-                Map<String, String> event = new HashMap<>(1);
-                event.put("type", "inbox.updated");
-                sink.success(event);
             });
         }
     }
 
     private void configureDeepLinking(@NonNull KumulosConfig.Builder config, @Nullable String deepLinkingCname) {
         DeferredDeepLinkHandlerInterface handler = (context, resolution, link, data) -> {
-            Map<String, Object> linkMap = null;
-            if (null != data) {
-                linkMap = new HashMap<>(2);
-
-                Map<String, Object> contentMap = new HashMap<>(2);
-                contentMap.put("title", data.content.title);
-                contentMap.put("description", data.content.description);
-
-                linkMap.put("content", contentMap);
-
-                try {
-                    linkMap.put("data", data.data != null ? JsonUtils.toMap(data.data) : null);
-                } catch (JSONException e) {
-                    e.printStackTrace();
+            Tracing.begin("Kumulos.deepLinkResolved");
+            try {
+                Map<String, Object> linkMap = null;
+                if (null != data) {
+                    linkMap = new HashMap<>(2);
+
+                    Map<String, Object> contentMap = new HashMap<>(2);
+                    contentMap.put("title", data.content.title);
+                    contentMap.put("description", data.content.description);
+
+                    linkMap.put("content", contentMap);
+
+                    try {
+                        linkMap.put("data", data.data != null ? JsonUtils.toMap(data.data) : null);
+                    } catch (JSONException e) {
+                        e.printStackTrace();
+                        linkMap.put("data", null);
+                    }
                 }
-            }
 
-            Map<String, Object> eventData = new HashMap<>(3);
-            eventData.put("url", link);
-            eventData.put("resolution", resolution.ordinal());
-            eventData.put("link", linkMap);
+                Map<String, Object> eventData = KumulosMessageCodec.deepLinkOutcomeMap();
+                eventData.put("url", link);
+                eventData.put("resolution", resolution.ordinal());
+                eventData.put("link", linkMap);
 
-            Map<String, Object> event = new HashMap<>(2);
-            event.put("type", "deep-linking.linkResolved");
-            event.put("data", eventData);
+                Map<String, Object> event = new HashMap<>(2);
+                event.put("type", "deep-linking.linkResolved");
+                event.put("data", eventData);
 
-            KumulosSdkFlutterPlugin.eventSink.send(event);
+                KumulosSdkFlutterPlugin.eventSink.send(event);
+            } finally {
+                Tracing.end();
+            }
         };
 
         if (deepLinkingCname != null) {
@@ -258,24 +464,45 @@ public class KumulosInitProvider extends ContentProvider {
         }
     }
 
+    private boolean isMainProcess() {
+        String processName = getCurrentProcessName();
+        // Assume the main process if the name can't be determined
+        return null == processName || processName.equals(getContext().getPackageName());
+    }
+
     @Nullable
-    private JsonReader getConfigReader() {
-        String key = "flutter_assets" + File.separator + "kumulos.json";
-        AssetManager assetManager = getContext().getAssets();
-        InputStream is = null;
-        try {
-            is = assetManager.open(key);
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
+    private static String getCurrentProcessName() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return Application.getProcessName();
         }
-        JsonReader reader = null;
+
+        BufferedReader reader = null;
         try {
-            reader = new JsonReader(new InputStreamReader(is, "UTF-8"));
-        } catch (UnsupportedEncodingException e) {
+            reader = new BufferedReader(new FileReader("/proc/self/cmdline"));
+            String cmdline = reader.readLine();
+            if (null == cmdline) {
+                return null;
+            }
+
+            int end = cmdline.indexOf('\0');
+            return (end >= 0 ? cmdline.substring(0, end) : cmdline).trim();
+        } catch (IOException e) {
             e.printStackTrace();
             return null;
+        } finally {
+            if (null != reader) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    /* Noop */
+                }
+            }
         }
-        return reader;
+    }
+
+    @Nullable
+    private JsonReader getConfigReader() {
+        AssetManager assetManager = getContext().getAssets();
+        return KumulosConfigSource.open(KumulosGeneratedConfig.JSON, assetManager::open);
     }
 }
@@ -0,0 +1,124 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+import io.flutter.plugin.common.StandardMessageCodec;
+
+// StandardMessageCodec that can write inbox items, push messages & deep link outcomes as a type tag
+// followed by their field values in a fixed order, rather than as maps with a key string per field.
+// The Dart side always understands both forms (see _KumulosMessageCodec), so compact mode is a
+// native config switch. The field orders here must match the Dart codec. Tagged values are read
+// back into typed maps the same way Dart does.
+/** package */ class KumulosMessageCodec extends StandardMessageCodec {
+
+    static final KumulosMessageCodec INSTANCE = new KumulosMessageCodec();
+
+    private static final byte INBOX_ITEM = (byte) 128;
+    private static final byte PUSH_MESSAGE = (byte) 129;
+    private static final byte DEEP_LINK_OUTCOME = (byte) 130;
+
+    private static final String[] INBOX_ITEM_FIELDS = {
+            "id",
+            "title",
+            "subtitle",
+            "sentAt",
+            "isRead",
+            "data",
+            "imageUrl",
+            "localImagePath",
+            "availableFrom",
+            "availableTo",
+            "dismissedAt",
+    };
+
+    private static final String[] PUSH_MESSAGE_FIELDS = {
+            "id",
+            "title",
+            "message",
+            "actionId",
+            "data",
+            "url",
+    };
+
+    private static final String[] DEEP_LINK_OUTCOME_FIELDS = {
+            "url",
+            "resolution",
+            "link",
+    };
+
+    private static volatile boolean compact = false;
+
+    static void setCompact(boolean compact) {
+        KumulosMessageCodec.compact = compact;
+    }
+
+    /**
+     * A map that is written positionally in compact mode. Keys outside its field list are not
+     * sent in compact mode, so only put the listed fields.
+     */
+    static class TypedMap extends HashMap<String, Object> {
+        private final byte type;
+        private final String[] fields;
+
+        private TypedMap(byte type, @NonNull String[] fields) {
+            super((int) (fields.length / 0.75f) + 1);
+            this.type = type;
+            this.fields = fields;
+        }
+    }
+
+    @NonNull
+    static TypedMap inboxItemMap() {
+        return new TypedMap(INBOX_ITEM, INBOX_ITEM_FIELDS);
+    }
+
+    @NonNull
+    static TypedMap pushMessageMap() {
+        return new TypedMap(PUSH_MESSAGE, PUSH_MESSAGE_FIELDS);
+    }
+
+    @NonNull
+    static TypedMap deepLinkOutcomeMap() {
+        return new TypedMap(DEEP_LINK_OUTCOME, DEEP_LINK_OUTCOME_FIELDS);
+    }
+
+    @Override
+    protected void writeValue(@NonNull ByteArrayOutputStream stream, Object value) {
+        if (compact && value instanceof TypedMap) {
+            TypedMap typed = (TypedMap) value;
+            stream.write(typed.type);
+            for (String field : typed.fields) {
+                writeValue(stream, typed.get(field));
+            }
+            return;
+        }
+
+        super.writeValue(stream, value);
+    }
+
+    @Override
+    protected Object readValueOfType(byte type, @NonNull ByteBuffer buffer) {
+        switch (type) {
+            case INBOX_ITEM:
+                return readFields(buffer, inboxItemMap());
+            case PUSH_MESSAGE:
+                return readFields(buffer, pushMessageMap());
+            case DEEP_LINK_OUTCOME:
+                return readFields(buffer, deepLinkOutcomeMap());
+            default:
+                return super.readValueOfType(type, buffer);
+        }
+    }
+
+    @NonNull
+    private TypedMap readFields(@NonNull ByteBuffer buffer, @NonNull TypedMap map) {
+        for (String field : map.fields) {
+            map.put(field, readValue(buffer));
+        }
+        return map;
+    }
+}
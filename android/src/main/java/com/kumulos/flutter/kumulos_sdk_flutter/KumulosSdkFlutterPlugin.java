@@ -2,9 +2,11 @@ package com.kumulos.flutter.kumulos_sdk_flutter;
 
 import android.app.Activity;
 import android.content.Context;
-import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.kumulos.android.InAppInboxItem;
 import com.kumulos.android.Kumulos;
@@ -14,14 +16,14 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.lang.ref.WeakReference;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
@@ -31,11 +33,20 @@ import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.MethodChannel.MethodCallHandler;
 import io.flutter.plugin.common.MethodChannel.Result;
+import io.flutter.plugin.common.MethodCodec;
+import io.flutter.plugin.common.StandardMethodCodec;
 
 /**
  * KumulosSdkFlutterPlugin
  */
 public class KumulosSdkFlutterPlugin implements FlutterPlugin, MethodCallHandler, ActivityAware {
+    /**
+     * The FlutterEngineCache id of the engine started when prewarmFlutterEngine is enabled
+     */
+    public static final String CACHED_ENGINE_ID = "kumulos_sdk_flutter_engine";
+
+    private static final String ERROR_INVALID_PROPERTIES = "INVALID_PROPERTIES";
+
     /// The MethodChannel that will the communication between Flutter and native Android
     ///
     /// This local reference serves to register the plugin with the Flutter Engine and unregister it
@@ -43,6 +54,8 @@ public class KumulosSdkFlutterPlugin implements FlutterPlugin, MethodCallHandler
     private MethodChannel channel;
     private EventChannel eventChannel;
     private EventChannel inAppEventChannel;
+    private EngineStreamHandler engineEventSink;
+    private EngineStreamHandler engineInAppEventSink;
     private Context context;
     /**
      * package
@@ -52,43 +65,90 @@ public class KumulosSdkFlutterPlugin implements FlutterPlugin, MethodCallHandler
     /**
      * package
      */
-    static QueueingEventStreamHandler eventSink = new QueueingEventStreamHandler();
+    static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Storage-backed calls & event journal writes are serialized on a single background thread so
+    // they keep their call order
+    private static final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "kumulos-flutter-bridge"));
+
+    /**
+     * package
+     */
+    static QueueingEventStreamHandler eventSink = new QueueingEventStreamHandler(mainHandler, backgroundExecutor);
+    /**
+     * package
+     */
+    static final InAppEventStreamHandler inAppEventSink = new InAppEventStreamHandler();
     /**
      * package
      */
-    static EventChannel.EventSink inAppEventSink;
+    static final InAppInboxCache inboxCache = new InAppInboxCache();
+    /**
+     * package
+     */
+    static final InAppInboxSummaryCache inboxSummaryCache = new InAppInboxSummaryCache();
+    /**
+     * package
+     */
+    static final InboxImageCache inboxImageCache = new InboxImageCache();
+    /**
+     * package
+     */
+    static final LocationUpdatePipeline locationPipeline = new LocationUpdatePipeline();
+
+    // Each keeps the inbox, summary & image caches in step with its change
+    private static final InboxMutations markAsReadMutations = new InboxMutations(inboxCache,
+            KumulosInApp::markAsRead,
+            (ids, unreadCount) -> inboxSummaryCache.onMarkedAsRead(unreadCount));
+    private static final InboxMutations deleteMutations = new InboxMutations(inboxCache,
+            KumulosInApp::deleteMessageFromInbox,
+            (ids, unreadCount) -> {
+                for (int id : ids) {
+                    inboxImageCache.evict(id);
+                }
+                inboxSummaryCache.onDeleted(ids.size(), unreadCount);
+            });
+
+    private static final AtomicInteger attachedEngineCount = new AtomicInteger();
 
     @Override
     public void onAttachedToEngine(@NonNull FlutterPluginBinding flutterPluginBinding) {
+        StartupMetrics.mark(StartupMetrics.ATTACHED_TO_ENGINE);
+
+        attachedEngineCount.incrementAndGet();
         context = flutterPluginBinding.getApplicationContext();
 
-        channel = new MethodChannel(flutterPluginBinding.getBinaryMessenger(), "kumulos_sdk_flutter");
-        channel.setMethodCallHandler(this);
+        MethodCodec codec = new StandardMethodCodec(KumulosMessageCodec.INSTANCE);
 
-        eventChannel = new EventChannel(flutterPluginBinding.getBinaryMessenger(), "kumulos_sdk_flutter_events");
-        eventChannel.setStreamHandler(eventSink);
+        channel = new MethodChannel(flutterPluginBinding.getBinaryMessenger(), "kumulos_sdk_flutter", codec);
+        channel.setMethodCallHandler(this);
 
-        inAppEventChannel = new EventChannel(flutterPluginBinding.getBinaryMessenger(), "kumulos_sdk_flutter_events_in_app");
-        inAppEventChannel.setStreamHandler(new EventChannel.StreamHandler() {
-            @Override
-            public void onListen(Object arguments, EventChannel.EventSink events) {
-                inAppEventSink = events;
-            }
+        eventChannel = new EventChannel(flutterPluginBinding.getBinaryMessenger(), "kumulos_sdk_flutter_events", codec);
+        engineEventSink = new EngineStreamHandler(eventSink);
+        eventChannel.setStreamHandler(engineEventSink);
 
-            @Override
-            public void onCancel(Object arguments) {
-                inAppEventSink = null;
-            }
-        });
+        inAppEventChannel = new EventChannel(flutterPluginBinding.getBinaryMessenger(), "kumulos_sdk_flutter_events_in_app", codec);
+        engineInAppEventSink = new EngineStreamHandler(inAppEventSink);
+        inAppEventChannel.setStreamHandler(engineInAppEventSink);
     }
 
     @Override
     public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
         channel.setMethodCallHandler(null);
         eventChannel.setStreamHandler(null);
-        eventSink.onCancel(null);
+        engineEventSink.onCancel(null);
         inAppEventChannel.setStreamHandler(null);
+        engineInAppEventSink.onCancel(null);
         context = null;
+        attachedEngineCount.decrementAndGet();
+    }
+
+    /**
+     * Whether any engine is running with the plugin attached, i.e. the app's Dart is already up
+     */
+    static boolean isAttachedToEngine() {
+        return attachedEngineCount.get() > 0;
     }
 
     @Override
@@ -113,6 +173,20 @@ public class KumulosSdkFlutterPlugin implements FlutterPlugin, MethodCallHandler
 
     @Override
     public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
+        Result timedResult = new TimedResult(call.method, result);
+
+        // Calls arriving before a deferred init has run wait for it to complete
+        KumulosInitProvider.ensureInitialized();
+
+        Tracing.begin("Kumulos.method.", call.method);
+        try {
+            handleMethodCall(call, timedResult);
+        } finally {
+            Tracing.end();
+        }
+    }
+
+    private void handleMethodCall(@NonNull MethodCall call, @NonNull Result result) {
         switch (call.method) {
             case "getKeys":
                 List<String> keys = new ArrayList<>(2);
@@ -122,17 +196,27 @@ public class KumulosSdkFlutterPlugin implements FlutterPlugin, MethodCallHandler
                 result.success(keys);
                 break;
             case "getInstallId":
-                result.success(com.kumulos.android.Installation.id(context));
+            case "inAppGetInboxItems":
+            case "inAppGetInboxChanges":
+            case "inAppPresentInboxMessage":
+            case "inAppDeleteMessageFromInbox":
+            case "inAppMarkAsRead":
+            case "inAppMarkAsReadBatch":
+            case "inAppDeleteBatch":
+            case "inAppMarkAllInboxItemsAsRead":
+                runInBackground(call, result);
                 break;
             case "getCurrentUserIdentifier":
                 result.success(Kumulos.getCurrentUserIdentifier(context));
                 break;
             case "associateUserWithInstall":
                 String ident = call.argument("id");
-                Map<String, Object> attrsMap = call.argument("attrs");
-                JSONObject attrs = null;
-                if (null != attrsMap) {
-                    attrs = new JSONObject(attrsMap);
+                JSONObject attrs;
+                try {
+                    attrs = MessageMapper.propsToJson(call.argument("attrs"));
+                } catch (JSONException e) {
+                    result.error(ERROR_INVALID_PROPERTIES, e.getMessage(), null);
+                    break;
                 }
 
                 Kumulos.associateUserWithInstall(context, ident, attrs);
@@ -146,10 +230,12 @@ public class KumulosSdkFlutterPlugin implements FlutterPlugin, MethodCallHandler
                 String type = call.argument("type");
                 Boolean flush = call.argument("flush");
 
-                Map<String, Object> propsMap = call.argument("props");
-                JSONObject props = null;
-                if (null != propsMap) {
-                    props = new JSONObject(propsMap);
+                JSONObject props;
+                try {
+                    props = MessageMapper.propsToJson(call.argument("props"));
+                } catch (JSONException e) {
+                    result.error(ERROR_INVALID_PROPERTIES, e.getMessage(), null);
+                    break;
                 }
 
                 if (flush) {
@@ -158,17 +244,26 @@ public class KumulosSdkFlutterPlugin implements FlutterPlugin, MethodCallHandler
                     Kumulos.trackEvent(context, type, props);
                 }
 
+                result.success(null);
+                break;
+            case "trackEvents":
+                try {
+                    trackEvents(call.arguments());
+                } catch (JSONException e) {
+                    result.error(ERROR_INVALID_PROPERTIES, e.getMessage(), null);
+                    break;
+                }
                 result.success(null);
                 break;
             case "sendLocationUpdate":
-                Double lat = call.argument("lat");
-                Double lng = call.argument("lng");
-                Location location = new Location("");
-                location.setLatitude(lat);
-                location.setLongitude(lng);
-                location.setTime(System.currentTimeMillis());
-
-                Kumulos.sendLocationUpdate(context, location);
+                submitLocationUpdate(call.arguments());
+                result.success(null);
+                break;
+            case "sendLocationUpdates":
+                List<Map<String, Object>> locationUpdates = call.arguments();
+                for (Map<String, Object> locationUpdate : locationUpdates) {
+                    submitLocationUpdate(locationUpdate);
+                }
                 result.success(null);
                 break;
             case "pushRequestDeviceToken":
@@ -183,30 +278,23 @@ public class KumulosSdkFlutterPlugin implements FlutterPlugin, MethodCallHandler
                 KumulosInApp.updateConsentForUser(call.arguments());
                 result.success(null);
                 break;
-            case "inAppGetInboxItems":
-                getInboxItems(result);
-                break;
-            case "inAppPresentInboxMessage":
-                presentInAppMessage(call, result);
+            case "inAppGetInboxSummary":
+                inboxSummaryCache.get(context, result);
                 break;
-            case "inAppDeleteMessageFromInbox":
-                deleteInboxItem(call, result);
-                boolean deleted;
+            case "getStartupMetrics":
+                result.success(StartupMetrics.snapshot());
                 break;
-            case "inAppMarkAsRead":
-                markAsRead(call, result);
+            case "getBridgeMetrics":
+                Map<String, Object> bridgeMetrics = BridgeMetrics.snapshot();
+                bridgeMetrics.put("eventQueue", eventSink.getQueueStats());
+                bridgeMetrics.put("locationUpdates", locationPipeline.getStats());
+                result.success(bridgeMetrics);
                 break;
-            case "inAppMarkAllInboxItemsAsRead":
-                boolean allMarked = KumulosInApp.markAllInboxItemsAsRead(context);
-                result.success(allMarked);
-                break;
-            case "inAppGetInboxSummary":
-                KumulosInApp.getInboxSummaryAsync(context, summary -> {
-                    Map<String, Object> summaryMap = new HashMap<>(2);
-                    summaryMap.put("totalCount", summary.getTotalCount());
-                    summaryMap.put("unreadCount", summary.getUnreadCount());
-                    result.success(summaryMap);
-                });
+            case "resetBridgeMetrics":
+                BridgeMetrics.reset();
+                eventSink.resetQueueStats();
+                locationPipeline.resetStats();
+                result.success(null);
                 break;
             case "reportCrash":
                 String error = call.argument("error");
@@ -214,6 +302,7 @@ public class KumulosSdkFlutterPlugin implements FlutterPlugin, MethodCallHandler
                 Boolean uncaught = call.argument("uncaught");
 
                 this.reportCrash(error, stackTrace, uncaught);
+                result.success(null);
                 break;
             default:
                 result.notImplemented();
@@ -221,100 +310,169 @@ public class KumulosSdkFlutterPlugin implements FlutterPlugin, MethodCallHandler
         }
     }
 
-    private void presentInAppMessage(@NonNull MethodCall call, @NonNull Result result) {
-        int id = call.arguments();
-        KumulosInApp.InboxMessagePresentationResult presentationResult = KumulosInApp.InboxMessagePresentationResult.FAILED;
-        List<InAppInboxItem> items = KumulosInApp.getInboxItems(context);
-        for (InAppInboxItem item :
-                items) {
-            if (item.getId() == id) {
-                presentationResult = KumulosInApp.presentInboxMessage(context, item);
-                break;
+    private void submitLocationUpdate(@NonNull Map<String, Object> locationUpdate) {
+        Double lat = (Double) locationUpdate.get("lat");
+        Double lng = (Double) locationUpdate.get("lng");
+        Number time = (Number) locationUpdate.get("time");
+
+        locationPipeline.submit(context, lat, lng, null != time ? time.longValue() : 0);
+    }
+
+    private void runInBackground(@NonNull MethodCall call, @NonNull Result result) {
+        // Capture the context as the engine may detach before the call runs
+        final Context appContext = context;
+        final Result mainThreadResult = new MainThreadResult(result);
+
+        backgroundExecutor.execute(() -> {
+            Tracing.begin("Kumulos.backgroundMethod.", call.method);
+            try {
+                onBackgroundMethodCall(appContext, call, mainThreadResult);
+            } finally {
+                Tracing.end();
             }
-        }
-        // Map the enum ordinals into the order expected in the dart side (matches ObjC)
-        switch (presentationResult) {
-            case PRESENTED:
-                result.success(0);
+        });
+    }
+
+    private static void onBackgroundMethodCall(@NonNull Context context, @NonNull MethodCall call, @NonNull Result result) {
+        switch (call.method) {
+            case "getInstallId":
+                result.success(com.kumulos.android.Installation.id(context));
+                break;
+            case "inAppGetInboxItems":
+                getInboxItems(context, call, result);
                 break;
-            case FAILED_EXPIRED:
-                result.success(1);
+            case "inAppGetInboxChanges":
+                getInboxChanges(context, call, result);
+                break;
+            case "inAppPresentInboxMessage":
+                presentInAppMessage(context, call, result);
+                break;
+            case "inAppDeleteMessageFromInbox":
+                deleteInboxItem(context, call, result);
+                break;
+            case "inAppMarkAsRead":
+                markAsRead(context, call, result);
+                break;
+            case "inAppMarkAsReadBatch":
+                markAsReadBatch(context, call, result);
+                break;
+            case "inAppDeleteBatch":
+                deleteBatch(context, call, result);
+                break;
+            case "inAppMarkAllInboxItemsAsRead":
+                boolean allMarked = KumulosInApp.markAllInboxItemsAsRead(context);
+                if (allMarked) {
+                    inboxCache.invalidate();
+                    inboxSummaryCache.onAllMarkedAsRead();
+                }
+                result.success(allMarked);
                 break;
             default:
-                result.success(2);
+                result.notImplemented();
                 break;
         }
     }
 
-    private void markAsRead(@NonNull MethodCall call, @NonNull Result result) {
-        boolean deleted;
+    private static void presentInAppMessage(@NonNull Context context, @NonNull MethodCall call, @NonNull Result result) {
         int id = call.arguments();
-        boolean marked = false;
-        List<InAppInboxItem> items = KumulosInApp.getInboxItems(context);
-        for (InAppInboxItem item : items) {
-            if (id == item.getId()) {
-                deleted = KumulosInApp.markAsRead(context, item);
-                break;
+        InAppInboxItem item = inboxCache.getItem(context, id);
+
+        // Presentation touches the UI so it has to happen back on the main thread
+        mainHandler.post(() -> {
+            KumulosInApp.InboxMessagePresentationResult presentationResult = KumulosInApp.InboxMessagePresentationResult.FAILED;
+            if (null != item) {
+                presentationResult = KumulosInApp.presentInboxMessage(context, item);
             }
-        }
-        result.success(marked);
+            // Map the enum ordinals into the order expected in the dart side (matches ObjC)
+            switch (presentationResult) {
+                case PRESENTED:
+                    result.success(0);
+                    break;
+                case FAILED_EXPIRED:
+                    result.success(1);
+                    break;
+                default:
+                    result.success(2);
+                    break;
+            }
+        });
     }
 
-    private void deleteInboxItem(@NonNull MethodCall call, @NonNull Result result) {
+    private static void markAsRead(@NonNull Context context, @NonNull MethodCall call, @NonNull Result result) {
         int id = call.arguments();
-        boolean deleted = false;
-        List<InAppInboxItem> items = KumulosInApp.getInboxItems(context);
-        for (InAppInboxItem item : items) {
-            if (id == item.getId()) {
-                deleted = KumulosInApp.deleteMessageFromInbox(context, item);
-                break;
-            }
-        }
-        result.success(deleted);
+        result.success(markAsReadMutations.apply(context, id));
+    }
+
+    private static void deleteInboxItem(@NonNull Context context, @NonNull MethodCall call, @NonNull Result result) {
+        int id = call.arguments();
+        result.success(deleteMutations.apply(context, id));
     }
 
-    private void getInboxItems(@NonNull Result result) {
-        SimpleDateFormat formatter;
-        formatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
-        formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
+    private static void markAsReadBatch(@NonNull Context context, @NonNull MethodCall call, @NonNull Result result) {
+        List<Integer> ids = call.arguments();
+        result.success(markAsReadMutations.applyBatch(context, ids));
+    }
+
+    private static void deleteBatch(@NonNull Context context, @NonNull MethodCall call, @NonNull Result result) {
+        List<Integer> ids = call.arguments();
+        result.success(deleteMutations.applyBatch(context, ids));
+    }
 
-        List<InAppInboxItem> inboxItems = KumulosInApp.getInboxItems(context);
+    private static void getInboxItems(@NonNull Context context, @NonNull MethodCall call, @NonNull Result result) {
+        boolean epochMillis = Boolean.TRUE.equals(call.argument("epochMillis"));
+
+        List<InAppInboxItem> inboxItems = inboxCache.getItems(context);
+        inboxImageCache.ensurePrefetched(context);
         List<Map<String, Object>> results = new ArrayList<>(inboxItems.size());
         for (InAppInboxItem item : inboxItems) {
-            Map<String, Object> mapped = new HashMap<>(10);
-            mapped.put("id", item.getId());
-            mapped.put("title", item.getTitle());
-            mapped.put("subtitle", item.getSubtitle());
-            mapped.put("sentAt", formatter.format(item.getSentAt()));
-            mapped.put("isRead", item.isRead());
-            mapped.put("data", item.getData());
-            mapped.put("imageUrl", item.getImageUrl() != null ? item.getImageUrl().toString() : null);
-
-            Date availableFrom = item.getAvailableFrom();
-            Date availableTo = item.getAvailableTo();
-            Date dismissedAt = item.getDismissedAt();
-
-            if (null == availableFrom) {
-                mapped.put("availableFrom", null);
-            } else {
-                mapped.put("availableFrom", formatter.format(availableFrom));
-            }
+            results.add(MessageMapper.inboxItemToMap(item, epochMillis, inboxImageCache.getLocalPath(item)));
+        }
+        result.success(results);
+    }
 
-            if (null == availableTo) {
-                mapped.put("availableTo", null);
-            } else {
-                mapped.put("availableTo", formatter.format(availableTo));
+    private static void getInboxChanges(@NonNull Context context, @NonNull MethodCall call, @NonNull Result result) {
+        Integer sinceRevision = call.argument("sinceRevision");
+        boolean epochMillis = Boolean.TRUE.equals(call.argument("epochMillis"));
+        InAppInboxCache.Changes changes = inboxCache.getChanges(context, null != sinceRevision ? sinceRevision : -1);
+
+        List<Map<String, Object>> items = new ArrayList<>(changes.items.size());
+        for (InAppInboxItem item : changes.items) {
+            items.add(MessageMapper.inboxItemToMap(item, epochMillis, inboxImageCache.getLocalPath(item)));
+        }
+
+        Map<String, Object> changesMap = new HashMap<>(4);
+        changesMap.put("revision", changes.revision);
+        changesMap.put("reset", changes.reset);
+        changesMap.put("items", items);
+        changesMap.put("removedIds", changes.removedIds);
+        result.success(changesMap);
+    }
+
+    private void trackEvents(@NonNull List<Map<String, Object>> events) throws JSONException {
+        int count = events.size();
+        String[] types = new String[count];
+        JSONObject[] props = new JSONObject[count];
+        // Flushing sends everything queued before it, so one immediate track covers the whole batch
+        int flushIndex = -1;
+
+        // Convert everything up front so a malformed record doesn't leave the batch half tracked
+        for (int i = 0; i < count; ++i) {
+            Map<String, Object> event = events.get(i);
+            types[i] = (String) event.get("type");
+            props[i] = MessageMapper.propsToJson(event.get("props"));
+
+            if (Boolean.TRUE.equals(event.get("flush"))) {
+                flushIndex = i;
             }
+        }
 
-            if (null == dismissedAt) {
-                mapped.put("dismissedAt", null);
+        for (int i = 0; i < count; ++i) {
+            if (i == flushIndex) {
+                Kumulos.trackEventImmediately(context, types[i], props[i]);
             } else {
-                mapped.put("dismissedAt", formatter.format(dismissedAt));
+                Kumulos.trackEvent(context, types[i], props[i]);
             }
-
-            results.add(mapped);
         }
-        result.success(results);
     }
 
     private void reportCrash(String error, String stackTrace, Boolean uncaught) {
@@ -336,47 +494,183 @@ public class KumulosSdkFlutterPlugin implements FlutterPlugin, MethodCallHandler
     }
 
     /**
-     * package
+     * Records the time from a call arriving to its reply being sent
      */
-    static class QueueingEventStreamHandler implements EventChannel.StreamHandler {
+    private static class TimedResult implements Result {
+        private final String method;
+        private final Result result;
+        private final long startedAt;
+
+        TimedResult(@NonNull String method, @NonNull Result result) {
+            this.method = method;
+            this.result = result;
+            this.startedAt = System.nanoTime();
+        }
 
-        private final ArrayList<Object> eventQueue = new ArrayList<>(1);
-        private EventChannel.EventSink eventSink;
+        @Override
+        public void success(@Nullable Object value) {
+            result.success(value);
+            BridgeMetrics.recordMethodCall(method, System.nanoTime() - startedAt, BridgeMetrics.Outcome.SUCCESS);
+        }
 
         @Override
-        public void onListen(Object arguments, EventChannel.EventSink events) {
-            synchronized (this) {
-                eventSink = events;
+        public void error(String errorCode, @Nullable String errorMessage, @Nullable Object errorDetails) {
+            result.error(errorCode, errorMessage, errorDetails);
+            BridgeMetrics.recordMethodCall(method, System.nanoTime() - startedAt, BridgeMetrics.Outcome.ERROR);
+        }
 
-                for (Object event : eventQueue) {
-                    eventSink.success(event);
-                }
+        @Override
+        public void notImplemented() {
+            result.notImplemented();
+            BridgeMetrics.recordMethodCall(method, System.nanoTime() - startedAt, BridgeMetrics.Outcome.NOT_IMPLEMENTED);
+        }
+    }
 
-                eventQueue.clear();
+    /**
+     * Delivers replies on the main thread, as required by the method channel
+     */
+    static class MainThreadResult implements Result {
+        private final Result result;
+
+        MainThreadResult(@NonNull Result result) {
+            this.result = result;
+        }
+
+        @Override
+        public void success(@Nullable Object value) {
+            runOnMainThread(() -> result.success(value));
+        }
+
+        @Override
+        public void error(String errorCode, @Nullable String errorMessage, @Nullable Object errorDetails) {
+            runOnMainThread(() -> result.error(errorCode, errorMessage, errorDetails));
+        }
+
+        @Override
+        public void notImplemented() {
+            runOnMainThread(result::notImplemented);
+        }
+
+        private static void runOnMainThread(@NonNull Runnable runnable) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                runnable.run();
+                return;
             }
+
+            mainHandler.post(runnable);
+        }
+    }
+
+    /**
+     * One engine's view of a shared stream, remembering the sink its channel listens with
+     */
+    static class EngineStreamHandler implements EventChannel.StreamHandler {
+        private final SharedStreamHandler shared;
+        private EventChannel.EventSink events;
+
+        EngineStreamHandler(@NonNull SharedStreamHandler shared) {
+            this.shared = shared;
+        }
+
+        @Override
+        public void onListen(Object arguments, EventChannel.EventSink events) {
+            this.events = events;
+            shared.onListen(arguments, events);
         }
 
         @Override
         public void onCancel(Object arguments) {
-            synchronized (this) {
+            EventChannel.EventSink events = this.events;
+            this.events = null;
+            if (null != events) {
+                shared.onCancel(arguments, events);
+            }
+        }
+    }
+
+    static class InAppEventStreamHandler implements SharedStreamHandler {
+
+        // At most one inbox update is pending at a time, so its async section can use a fixed cookie
+        private static final String INBOX_UPDATE_SECTION = "Kumulos.inboxUpdateDelivery";
+
+        private volatile EventChannel.EventSink eventSink;
+        private volatile long inboxUpdateCoalesceWindowMs;
+        private final AtomicBoolean inboxUpdatePending = new AtomicBoolean(false);
+        private volatile long inboxUpdatePendingSince;
+
+        private final Runnable inboxUpdatedDispatch = () -> {
+            long pendingSince = inboxUpdatePendingSince;
+            inboxUpdatePending.set(false);
+
+            Map<String, String> event = new HashMap<>(1);
+            event.put("type", "inbox.updated");
+            sendOnMainThread(event, pendingSince);
+            Tracing.endAsync(INBOX_UPDATE_SECTION, 0);
+        };
+
+        @Override
+        public synchronized void onListen(Object arguments, EventChannel.EventSink events) {
+            eventSink = events;
+        }
+
+        @Override
+        public synchronized void onCancel(Object arguments) {
+            eventSink = null;
+        }
+
+        @Override
+        public synchronized void onCancel(Object arguments, @NonNull EventChannel.EventSink events) {
+            if (events == eventSink) {
                 eventSink = null;
-                eventQueue.clear();
             }
         }
 
-        public synchronized void send(Object event) {
-            send(event, true);
+        void setInboxUpdateCoalesceWindow(long windowMs) {
+            inboxUpdateCoalesceWindowMs = Math.max(0, windowMs);
         }
 
-        public synchronized void send(Object event, boolean queueIfNotReady) {
-            if (null == eventSink) {
-                if (queueIfNotReady) {
-                    eventQueue.add(event);
-                }
+        /**
+         * Safe to call from any thread. Updates arriving before the pending one is dispatched
+         * are folded into it, so Dart reloads the inbox once per burst.
+         */
+        void notifyInboxUpdated() {
+            if (!inboxUpdatePending.compareAndSet(false, true)) {
+                return;
+            }
+
+            inboxUpdatePendingSince = System.nanoTime();
+            Tracing.beginAsync(INBOX_UPDATE_SECTION, 0);
+            mainHandler.postDelayed(inboxUpdatedDispatch, inboxUpdateCoalesceWindowMs);
+        }
+
+        /**
+         * Safe to call from any thread, delivery always happens on the main thread
+         */
+        void send(Object event) {
+            long sentAt = System.nanoTime();
+            int traceCookie = System.identityHashCode(event);
+            Tracing.beginAsync(Tracing.EVENT_DELIVERY_SECTION, traceCookie);
+
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                sendOnMainThread(event, sentAt);
+                Tracing.endAsync(Tracing.EVENT_DELIVERY_SECTION, traceCookie);
+                return;
+            }
+
+            mainHandler.post(() -> {
+                sendOnMainThread(event, sentAt);
+                Tracing.endAsync(Tracing.EVENT_DELIVERY_SECTION, traceCookie);
+            });
+        }
+
+        private void sendOnMainThread(Object event, long sentAt) {
+            EventChannel.EventSink sink = eventSink;
+            if (null == sink) {
                 return;
             }
 
-            eventSink.success(event);
+            sink.success(event);
+            BridgeMetrics.recordEventDelivered(event, System.nanoTime() - sentAt);
         }
     }
 }
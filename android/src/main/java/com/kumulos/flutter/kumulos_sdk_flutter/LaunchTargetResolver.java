@@ -0,0 +1,74 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+// Resolves the activity a push open launches, and its manifest parent chain, once per component.
+// Repeat opens then skip the class lookup and the PackageManager queries behind the parent chain.
+/** package */ class LaunchTargetResolver {
+
+    interface ParentStackLoader {
+        /**
+         * @return the manifest's parent activity chain for the component, root first
+         */
+        @NonNull
+        Intent[] load(@NonNull Context context, @NonNull ComponentName component);
+    }
+
+    static class LaunchTarget {
+        final ComponentName component;
+        private final ParentStackLoader parentStackLoader;
+        private Intent[] parentStack;
+
+        LaunchTarget(@NonNull ComponentName component, @NonNull ParentStackLoader parentStackLoader) {
+            this.component = component;
+            this.parentStackLoader = parentStackLoader;
+        }
+
+        /**
+         * Loaded on first use. Callers must copy the intents before modifying them.
+         */
+        @NonNull
+        synchronized Intent[] getParentStack(@NonNull Context context) {
+            if (null == parentStack) {
+                parentStack = parentStackLoader.load(context, component);
+            }
+            return parentStack;
+        }
+    }
+
+    private final ParentStackLoader parentStackLoader;
+    private volatile LaunchTarget launchTarget;
+
+    LaunchTargetResolver(@NonNull ParentStackLoader parentStackLoader) {
+        this.parentStackLoader = parentStackLoader;
+    }
+
+    /**
+     * The cache is keyed on the component name, so a change of launch activity (e.g. toggling an
+     * activity-alias) resolves afresh.
+     *
+     * @return null if the component isn't a class in this app
+     */
+    @Nullable
+    LaunchTarget resolve(@NonNull ComponentName component) {
+        LaunchTarget target = launchTarget;
+        if (null != target && target.component.equals(component)) {
+            return target;
+        }
+
+        try {
+            Class.forName(component.getClassName());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+
+        target = new LaunchTarget(component, parentStackLoader);
+        launchTarget = target;
+        return target;
+    }
+}
@@ -0,0 +1,144 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+
+import com.kumulos.android.Kumulos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Filters location fixes from Dart before they reach the SDK. A fix is suppressed when it's closer
+// than the minimum distance or sooner than the minimum interval after the last accepted fix.
+// Accepted fixes are held & flushed together every flush interval, when the pending buffer fills,
+// or when the app's UI goes to the background. With the defaults every fix is sent immediately.
+/** package */ class LocationUpdatePipeline {
+
+    private static final int MAX_PENDING = 100;
+
+    private float minDistanceMeters = 0;
+    private long minIntervalMs = 0;
+    private long flushIntervalMs = 0;
+
+    private Location lastAccepted;
+    private final List<Location> pending = new ArrayList<>();
+    private Context appContext;
+    private boolean flushScheduled = false;
+
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong suppressedCount = new AtomicLong();
+    private final AtomicLong flushedCount = new AtomicLong();
+
+    private final Runnable scheduledFlush = () -> {
+        synchronized (LocationUpdatePipeline.this) {
+            flushScheduled = false;
+            flush();
+        }
+    };
+
+    private final ComponentCallbacks2 backgroundListener = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_UI_HIDDEN) {
+                synchronized (LocationUpdatePipeline.this) {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+        }
+    };
+
+    synchronized void configure(float minDistanceMeters, long minIntervalMs, long flushIntervalMs) {
+        this.minDistanceMeters = Math.max(0, minDistanceMeters);
+        this.minIntervalMs = Math.max(0, minIntervalMs);
+        this.flushIntervalMs = Math.max(0, flushIntervalMs);
+    }
+
+    /**
+     * @param timeMs the fix's epoch millis, or 0 to use the current time
+     */
+    synchronized void submit(@NonNull Context context, double lat, double lng, long timeMs) {
+        receivedCount.incrementAndGet();
+
+        Location location = new Location("");
+        location.setLatitude(lat);
+        location.setLongitude(lng);
+        location.setTime(0 != timeMs ? timeMs : System.currentTimeMillis());
+
+        if (null != lastAccepted && isSuppressed(location)) {
+            suppressedCount.incrementAndGet();
+            return;
+        }
+
+        lastAccepted = location;
+        acceptedCount.incrementAndGet();
+        pending.add(location);
+
+        if (null == appContext) {
+            appContext = context.getApplicationContext();
+            appContext.registerComponentCallbacks(backgroundListener);
+        }
+
+        if (0 == flushIntervalMs || pending.size() >= MAX_PENDING) {
+            flush();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            KumulosSdkFlutterPlugin.mainHandler.postDelayed(scheduledFlush, flushIntervalMs);
+        }
+    }
+
+    private boolean isSuppressed(@NonNull Location location) {
+        if (minIntervalMs > 0 && Math.abs(location.getTime() - lastAccepted.getTime()) < minIntervalMs) {
+            return true;
+        }
+
+        return minDistanceMeters > 0 && location.distanceTo(lastAccepted) < minDistanceMeters;
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        for (Location location : pending) {
+            Kumulos.sendLocationUpdate(appContext, location);
+        }
+        flushedCount.addAndGet(pending.size());
+        pending.clear();
+    }
+
+    void resetStats() {
+        receivedCount.set(0);
+        acceptedCount.set(0);
+        suppressedCount.set(0);
+        flushedCount.set(0);
+    }
+
+    @NonNull
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>(6);
+        stats.put("received", receivedCount.get());
+        stats.put("accepted", acceptedCount.get());
+        stats.put("suppressed", suppressedCount.get());
+        stats.put("flushed", flushedCount.get());
+        synchronized (this) {
+            stats.put("pending", pending.size());
+        }
+        return stats;
+    }
+}
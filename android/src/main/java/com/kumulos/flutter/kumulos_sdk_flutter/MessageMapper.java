@@ -0,0 +1,124 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.kumulos.android.InAppInboxItem;
+import com.kumulos.android.PushMessage;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.Map;
+
+// Converts SDK models to the maps sent over the channels, and Dart-side properties back to JSON.
+// Kept free of Android & plugin state so the conversions can be benchmarked on the JVM.
+/** package */ class MessageMapper {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static volatile boolean rawJsonPayloads = false;
+
+    private MessageMapper() {
+    }
+
+    static void setRawJsonPayloads(boolean rawJsonPayloads) {
+        MessageMapper.rawJsonPayloads = rawJsonPayloads;
+    }
+
+    /**
+     * Push, inbox & in-app deep link data, either converted to maps for the codec or, when raw
+     * payloads are enabled, as UTF-8 JSON bytes for Dart to decode when (and where) it needs them.
+     * Data beyond the configured JSON limits is logged & sent as null so the rest of the message
+     * still gets through.
+     */
+    @Nullable
+    static Object encodePayload(@Nullable JSONObject data) {
+        if (rawJsonPayloads && null != data) {
+            return data.toString().getBytes(UTF_8);
+        }
+
+        return toMapOrNull(data);
+    }
+
+    @Nullable
+    static Map<String, Object> toMapOrNull(@Nullable JSONObject data) {
+        try {
+            return JsonUtils.toMap(data);
+        } catch (JSONException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @NonNull
+    static Map<String, Object> pushMessageToMap(@NonNull PushMessage pushMessage, @Nullable String actionId) {
+        return pushMessageToMap(pushMessage.getId(), pushMessage.getTitle(), pushMessage.getMessage(),
+                pushMessage.getData(), pushMessage.getUrl(), actionId);
+    }
+
+    @NonNull
+    static Map<String, Object> pushMessageToMap(int id, @Nullable String title, @Nullable String message,
+                                                @Nullable JSONObject data, @Nullable Uri url, @Nullable String actionId) {
+        Map<String, Object> mapped = KumulosMessageCodec.pushMessageMap();
+        mapped.put("id", id);
+        mapped.put("title", title);
+        mapped.put("message", message);
+        mapped.put("actionId", actionId);
+        mapped.put("data", encodePayload(data));
+        mapped.put("url", null != url ? url.toString() : null);
+
+        return mapped;
+    }
+
+    /**
+     * Dates are sent as UTC ISO-8601 strings, or as epoch millis when the caller opts in. Data is
+     * always sent as a map, raw payloads only apply to push & deep link data.
+     */
+    @NonNull
+    static Map<String, Object> inboxItemToMap(@NonNull InAppInboxItem item, boolean epochMillis, @Nullable String localImagePath) {
+        Map<String, Object> mapped = KumulosMessageCodec.inboxItemMap();
+        mapped.put("id", item.getId());
+        mapped.put("title", item.getTitle());
+        mapped.put("subtitle", item.getSubtitle());
+        mapped.put("sentAt", encodeDate(item.getSentAt(), epochMillis));
+        mapped.put("isRead", item.isRead());
+        mapped.put("data", toMapOrNull(item.getData()));
+        mapped.put("imageUrl", item.getImageUrl() != null ? item.getImageUrl().toString() : null);
+        mapped.put("localImagePath", localImagePath);
+        mapped.put("availableFrom", encodeDate(item.getAvailableFrom(), epochMillis));
+        mapped.put("availableTo", encodeDate(item.getAvailableTo(), epochMillis));
+        mapped.put("dismissedAt", encodeDate(item.getDismissedAt(), epochMillis));
+
+        return mapped;
+    }
+
+    /**
+     * Properties arrive either as a map, or as UTF-8 JSON bytes when pre-encoded on the Dart side
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    static JSONObject propsToJson(@Nullable Object props) throws JSONException {
+        if (props instanceof byte[]) {
+            return new JSONObject(new String((byte[]) props, UTF_8));
+        }
+
+        if (props instanceof Map) {
+            return new JSONObject((Map<String, Object>) props);
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private static Object encodeDate(@Nullable Date date, boolean epochMillis) {
+        if (null == date) {
+            return null;
+        }
+
+        return epochMillis ? (Object) date.getTime() : IsoDateFormatter.format(date);
+    }
+}
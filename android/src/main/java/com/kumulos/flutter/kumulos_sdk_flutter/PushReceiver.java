@@ -7,52 +7,44 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 
+import androidx.annotation.NonNull;
+
 import com.kumulos.android.Kumulos;
 import com.kumulos.android.PushActionHandlerInterface;
 import com.kumulos.android.PushBroadcastReceiver;
 import com.kumulos.android.PushMessage;
 
-import org.json.JSONException;
-
 import java.util.HashMap;
 import java.util.Map;
 
 public class PushReceiver extends PushBroadcastReceiver {
 
-    static Map<String, Object> pushMessageToMap(PushMessage pushMessage, String actionId) {
-        Map<String, Object> message = new HashMap<>(6);
-
-        try {
-            message.put("id", pushMessage.getId());
-            message.put("title", pushMessage.getTitle());
-            message.put("message", pushMessage.getMessage());
-            message.put("actionId", actionId);
-            message.put("data", JsonUtils.toMap(pushMessage.getData()));
-
-            if (null != pushMessage.getUrl()) {
-                message.put("url", pushMessage.getUrl().toString());
-            } else {
-                message.put("url", null);
-            }
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
-
-        return message;
-    }
+    private static PushReceiver launchIntentResolver;
+    private static final LaunchTargetResolver launchTargetResolver =
+            new LaunchTargetResolver(PushReceiver::loadParentStack);
 
     @Override
     protected void onPushReceived(Context context, PushMessage pushMessage) {
-        super.onPushReceived(context, pushMessage);
-
-        Map<String, Object> event = new HashMap<>(2);
-        event.put("type", "push.received");
-        event.put("data", pushMessageToMap(pushMessage, null));
-        KumulosSdkFlutterPlugin.eventSink.send(event, false);
+        KumulosInitProvider.ensureInitialized();
+        Tracing.begin("Kumulos.onPushReceived");
+        try {
+            super.onPushReceived(context, pushMessage);
+
+            // Received events aren't queued, so skip converting the payload when nobody's listening
+            KumulosSdkFlutterPlugin.eventSink.sendIfListening(() -> {
+                Map<String, Object> event = new HashMap<>(2);
+                event.put("type", "push.received");
+                event.put("data", MessageMapper.pushMessageToMap(pushMessage, null));
+                return event;
+            });
+        } finally {
+            Tracing.end();
+        }
     }
 
     @Override
     protected void onPushOpened(Context context, PushMessage pushMessage) {
+        KumulosInitProvider.ensureInitialized();
         try {
             Kumulos.pushTrackOpen(context, pushMessage.getId());
         } catch (Kumulos.UninitializedException e) {
@@ -62,29 +54,34 @@ public class PushReceiver extends PushBroadcastReceiver {
         PushReceiver.handlePushOpen(context, pushMessage, null);
     }
 
-    @SuppressWarnings("unchecked")
     private static void handlePushOpen(Context context, PushMessage pushMessage, String actionId) {
-        PushReceiver pr = new PushReceiver();
-        Intent launchIntent = pr.getPushOpenActivityIntent(context, pushMessage);
-
-        if (null == launchIntent) {
-            return;
+        Tracing.begin("Kumulos.handlePushOpen");
+        try {
+            handlePushOpenTraced(context, pushMessage, actionId);
+        } finally {
+            Tracing.end();
         }
+    }
 
-        ComponentName component = launchIntent.getComponent();
-        if (null == component) {
-            return;
-        }
+    private static void handlePushOpenTraced(Context context, PushMessage pushMessage, String actionId) {
+        BridgeMetrics.markPushOpened();
 
-        Class<? extends Activity> cls = null;
+        Intent launchIntent;
+        LaunchTargetResolver.LaunchTarget launchTarget = null;
+        Tracing.begin("Kumulos.resolveLaunchTarget");
         try {
-            cls = (Class<? extends Activity>) Class.forName(component.getClassName());
-        } catch (ClassNotFoundException e) {
-            /* Noop */
+            launchIntent = getLaunchIntentResolver().getPushOpenActivityIntent(context, pushMessage);
+            ComponentName component = null != launchIntent ? launchIntent.getComponent() : null;
+
+            // Ensure we're trying to launch an Activity
+            if (null != component) {
+                launchTarget = launchTargetResolver.resolve(component);
+            }
+        } finally {
+            Tracing.end();
         }
 
-        // Ensure we're trying to launch an Activity
-        if (null == cls) {
+        if (null == launchTarget) {
             return;
         }
 
@@ -99,27 +96,69 @@ public class PushReceiver extends PushBroadcastReceiver {
 
             addDeepLinkExtras(pushMessage, launchIntent);
 
-            TaskStackBuilder taskStackBuilder = TaskStackBuilder.create(context);
-            taskStackBuilder.addParentStack(component);
-            taskStackBuilder.addNextIntent(launchIntent);
-            taskStackBuilder.startActivities();
+            Tracing.begin("Kumulos.startActivities");
+            try {
+                TaskStackBuilder taskStackBuilder = TaskStackBuilder.create(context);
+                for (Intent parentIntent : launchTarget.getParentStack(context)) {
+                    taskStackBuilder.addNextIntent(new Intent(parentIntent));
+                }
+                taskStackBuilder.addNextIntent(launchIntent);
+                taskStackBuilder.startActivities();
+            } finally {
+                Tracing.end();
+            }
         } else {
             launchIntent.addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
 
             addDeepLinkExtras(pushMessage, launchIntent);
 
-            context.startActivity(launchIntent);
+            Tracing.begin("Kumulos.startActivity");
+            try {
+                context.startActivity(launchIntent);
+            } finally {
+                Tracing.end();
+            }
+        }
+
+        // With the launch under way, start Dart for the activity to adopt when the open cold-started
+        // the process
+        EnginePrewarmer.prewarm(context);
+
+        Tracing.begin("Kumulos.sendPushOpened");
+        try {
+            Map<String, Object> event = new HashMap<>(2);
+            event.put("type", "push.opened");
+            event.put("data", MessageMapper.pushMessageToMap(pushMessage, actionId));
+            KumulosSdkFlutterPlugin.eventSink.send(event);
+        } finally {
+            Tracing.end();
+        }
+    }
+
+    @NonNull
+    private static synchronized PushReceiver getLaunchIntentResolver() {
+        if (null == launchIntentResolver) {
+            launchIntentResolver = new PushReceiver();
         }
+        return launchIntentResolver;
+    }
 
-        Map<String, Object> event = new HashMap<>(2);
-        event.put("type", "push.opened");
-        event.put("data", pushMessageToMap(pushMessage, actionId));
-        KumulosSdkFlutterPlugin.eventSink.send(event);
+    @NonNull
+    private static Intent[] loadParentStack(@NonNull Context context, @NonNull ComponentName component) {
+        TaskStackBuilder builder = TaskStackBuilder.create(context);
+        builder.addParentStack(component);
+
+        Intent[] intents = new Intent[builder.getIntentCount()];
+        for (int i = 0; i < intents.length; ++i) {
+            intents[i] = new Intent(builder.editIntentAt(i));
+        }
+        return intents;
     }
 
     static class PushActionHandler implements PushActionHandlerInterface {
         @Override
         public void handle(Context context, PushMessage pushMessage, String actionId) {
+            KumulosInitProvider.ensureInitialized();
             PushReceiver.handlePushOpen(context, pushMessage, actionId);
 
             Intent it = new Intent(Intent.ACTION_CLOSE_SYSTEM_DIALOGS);
@@ -0,0 +1,327 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.flutter.plugin.common.EventChannel;
+
+// Delivers native events (push opens, deep links) to Dart, holding them in a bounded queue (and
+// optionally a journal) until a listener attaches. Events are always delivered on the main thread,
+// journal I/O happens on the journal executor.
+/** package */ class QueueingEventStreamHandler implements SharedStreamHandler {
+
+    interface EventFactory {
+        @NonNull
+        Object create();
+    }
+
+    private final Handler mainHandler;
+    private final Executor journalExecutor;
+
+    private final BoundedEventQueue eventQueue = new BoundedEventQueue(
+            BoundedEventQueue.DEFAULT_CAPACITY, BoundedEventQueue.OverflowPolicy.DROP_OLDEST);
+    private EventChannel.EventSink eventSink;
+    private EventJournal journal;
+    private boolean journalCompactionPending;
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    QueueingEventStreamHandler(@NonNull Handler mainHandler) {
+        this(mainHandler, Runnable::run);
+    }
+
+    /**
+     * @param journalExecutor runs journal writes, in submission order (e.g. a single thread)
+     */
+    QueueingEventStreamHandler(@NonNull Handler mainHandler, @NonNull Executor journalExecutor) {
+        this.mainHandler = mainHandler;
+        this.journalExecutor = journalExecutor;
+    }
+
+    @Override
+    public void onListen(Object arguments, EventChannel.EventSink events) {
+        StartupMetrics.mark(StartupMetrics.FIRST_LISTEN);
+
+        synchronized (this) {
+            eventSink = events;
+
+            long now = System.nanoTime();
+            while (eventQueue.size() > 0) {
+                long enqueuedAt = eventQueue.peekEnqueuedAt();
+                Object event = eventQueue.poll();
+                eventSink.success(event);
+                Tracing.endAsync(Tracing.EVENT_DELIVERY_SECTION, System.identityHashCode(event));
+                deliveredCount.incrementAndGet();
+                BridgeMetrics.recordEventDelivered(event, now - enqueuedAt);
+            }
+
+            truncateJournal();
+        }
+    }
+
+    @Override
+    public void onCancel(Object arguments) {
+        synchronized (this) {
+            eventSink = null;
+            droppedCount.addAndGet(eventQueue.size());
+            if (Tracing.isEnabled()) {
+                while (eventQueue.size() > 0) {
+                    Tracing.endAsync(Tracing.EVENT_DELIVERY_SECTION, System.identityHashCode(eventQueue.poll()));
+                }
+            }
+            eventQueue.clear();
+            truncateJournal();
+        }
+    }
+
+    @Override
+    public void onCancel(Object arguments, @NonNull EventChannel.EventSink events) {
+        synchronized (this) {
+            if (events == eventSink) {
+                onCancel(arguments);
+            }
+        }
+    }
+
+    public void send(Object event) {
+        send(event, true);
+    }
+
+    /**
+     * Safe to call from any thread, delivery always happens on the main thread
+     */
+    public void send(Object event, boolean queueIfNotReady) {
+        long sentAt = System.nanoTime();
+        Tracing.beginAsync(Tracing.EVENT_DELIVERY_SECTION, System.identityHashCode(event));
+
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            sendOnMainThread(event, queueIfNotReady, sentAt);
+            return;
+        }
+
+        mainHandler.post(() -> sendOnMainThread(event, queueIfNotReady, sentAt));
+    }
+
+    /**
+     * Sends an event only if a Dart listener is attached at delivery time, otherwise the
+     * event is never built. Safe to call from any thread.
+     */
+    void sendIfListening(@NonNull EventFactory eventFactory) {
+        long sentAt = System.nanoTime();
+        int traceCookie = System.identityHashCode(eventFactory);
+        Tracing.beginAsync(Tracing.EVENT_DELIVERY_SECTION, traceCookie);
+
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            sendIfListeningOnMainThread(eventFactory, sentAt);
+            Tracing.endAsync(Tracing.EVENT_DELIVERY_SECTION, traceCookie);
+            return;
+        }
+
+        mainHandler.post(() -> {
+            sendIfListeningOnMainThread(eventFactory, sentAt);
+            Tracing.endAsync(Tracing.EVENT_DELIVERY_SECTION, traceCookie);
+        });
+    }
+
+    private synchronized void sendIfListeningOnMainThread(@NonNull EventFactory eventFactory, long sentAt) {
+        if (null == eventSink) {
+            return;
+        }
+
+        Object event = eventFactory.create();
+        eventSink.success(event);
+        deliveredCount.incrementAndGet();
+        BridgeMetrics.recordEventDelivered(event, System.nanoTime() - sentAt);
+    }
+
+    private synchronized void sendOnMainThread(Object event, boolean queueIfNotReady, long sentAt) {
+        if (null == eventSink) {
+            if (queueIfNotReady) {
+                enqueuedCount.incrementAndGet();
+                Object dropped = eventQueue.offer(event, sentAt);
+                recordDropped(dropped);
+                if (null == dropped) {
+                    appendToJournal(event);
+                } else if (dropped != event) {
+                    // The dropped or coalesced event is journaled, and would be replayed next start
+                    compactJournal();
+                }
+            } else {
+                Tracing.endAsync(Tracing.EVENT_DELIVERY_SECTION, System.identityHashCode(event));
+            }
+            return;
+        }
+
+        eventSink.success(event);
+        Tracing.endAsync(Tracing.EVENT_DELIVERY_SECTION, System.identityHashCode(event));
+        deliveredCount.incrementAndGet();
+        BridgeMetrics.recordEventDelivered(event, System.nanoTime() - sentAt);
+    }
+
+    synchronized void configureQueue(int capacity, @NonNull BoundedEventQueue.OverflowPolicy overflowPolicy) {
+        // Shrinking keeps the newest events, so drop the oldest ahead of resizing
+        int excess = eventQueue.size() - Math.max(1, capacity);
+        for (int i = 0; i < excess; ++i) {
+            recordDropped(eventQueue.poll());
+        }
+        eventQueue.configure(capacity, overflowPolicy);
+
+        if (excess > 0) {
+            compactJournal();
+        }
+    }
+
+    /**
+     * Persists queued events to the given journal, restoring any left by a previous process
+     */
+    synchronized void configureJournal(@NonNull EventJournal journal) {
+        List<Map<String, Object>> restored;
+        try {
+            restored = journal.readAll();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        this.journal = journal;
+
+        // Restored events go ahead of anything queued since this process started
+        int queuedCount = eventQueue.size();
+        List<Object> queued = new ArrayList<>(queuedCount);
+        long[] queuedAt = new long[queuedCount];
+        for (int i = 0; i < queuedCount; ++i) {
+            queuedAt[i] = eventQueue.peekEnqueuedAt();
+            queued.add(eventQueue.poll());
+        }
+
+        long restoredAt = System.nanoTime();
+        boolean droppedRestored = false;
+        for (Map<String, Object> restoredEvent : restored) {
+            enqueuedCount.incrementAndGet();
+            Tracing.beginAsync(Tracing.EVENT_DELIVERY_SECTION, System.identityHashCode(restoredEvent));
+            Object dropped = eventQueue.offer(restoredEvent, restoredAt);
+            recordDropped(dropped);
+            droppedRestored |= null != dropped;
+        }
+
+        if (droppedRestored) {
+            compactJournal();
+        }
+
+        for (int i = 0; i < queuedCount; ++i) {
+            Object event = queued.get(i);
+            Object dropped = eventQueue.offer(event, queuedAt[i]);
+            recordDropped(dropped);
+            if (null == dropped) {
+                appendToJournal(event);
+            } else if (dropped != event) {
+                compactJournal();
+            }
+        }
+    }
+
+    private void recordDropped(@Nullable Object event) {
+        if (null == event) {
+            return;
+        }
+
+        droppedCount.incrementAndGet();
+        Tracing.endAsync(Tracing.EVENT_DELIVERY_SECTION, System.identityHashCode(event));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void appendToJournal(Object event) {
+        // A pending compaction writes out whatever is queued when it runs, this event included
+        if (null == journal || journalCompactionPending || !(event instanceof Map)) {
+            return;
+        }
+
+        EventJournal journal = this.journal;
+        journalExecutor.execute(() -> {
+            try {
+                journal.append((Map<String, Object>) event);
+            } catch (IOException | JSONException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Rewrites the journal from the queue, so dropped & coalesced events aren't restored later
+     */
+    @SuppressWarnings("unchecked")
+    private void compactJournal() {
+        if (null == journal || journalCompactionPending) {
+            return;
+        }
+
+        journalCompactionPending = true;
+        EventJournal journal = this.journal;
+        journalExecutor.execute(() -> {
+            List<Map<String, Object>> events = new ArrayList<>();
+            synchronized (this) {
+                journalCompactionPending = false;
+                for (Object event : eventQueue.snapshot()) {
+                    if (event instanceof Map) {
+                        events.add((Map<String, Object>) event);
+                    }
+                }
+            }
+
+            try {
+                journal.rewrite(events);
+            } catch (IOException | JSONException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void truncateJournal() {
+        if (null == journal) {
+            return;
+        }
+
+        EventJournal journal = this.journal;
+        journalExecutor.execute(() -> {
+            try {
+                journal.truncate();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    void resetQueueStats() {
+        enqueuedCount.set(0);
+        deliveredCount.set(0);
+        droppedCount.set(0);
+    }
+
+    @NonNull
+    Map<String, Object> getQueueStats() {
+        Map<String, Object> stats = new HashMap<>(5);
+        stats.put("enqueued", enqueuedCount.get());
+        stats.put("delivered", deliveredCount.get());
+        stats.put("dropped", droppedCount.get());
+        synchronized (this) {
+            stats.put("queued", eventQueue.size());
+            stats.put("capacity", eventQueue.capacity());
+        }
+        return stats;
+    }
+}
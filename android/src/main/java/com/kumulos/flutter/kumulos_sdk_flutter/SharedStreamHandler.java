@@ -0,0 +1,15 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import androidx.annotation.NonNull;
+
+import io.flutter.plugin.common.EventChannel;
+
+// An event stream shared by every engine the plugin is attached to. The engine that listened last
+// receives the events.
+/** package */ interface SharedStreamHandler extends EventChannel.StreamHandler {
+    /**
+     * Cancels only if the given sink is still the one listening, so one engine can't cancel
+     * another's listener
+     */
+    void onCancel(Object arguments, @NonNull EventChannel.EventSink events);
+}
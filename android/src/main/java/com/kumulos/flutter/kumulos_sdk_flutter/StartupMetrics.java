@@ -0,0 +1,99 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Monotonic (System.nanoTime) timestamps for each phase of plugin startup. Each phase is recorded
+// once per process, later marks are ignored.
+/** package */ class StartupMetrics {
+    private static final String TAG = StartupMetrics.class.getName();
+
+    static final int PROVIDER_CREATE_START = 0;
+    static final int CONFIG_READ_END = 1;
+    static final int CONFIG_PARSE_END = 2;
+    static final int BUILDER_SETUP_END = 3;
+    static final int INITIALIZE_START = 4;
+    static final int INITIALIZE_END = 5;
+    static final int PROVIDER_CREATE_END = 6;
+    static final int ATTACHED_TO_ENGINE = 7;
+    static final int FIRST_LISTEN = 8;
+
+    private static final String[] PHASE_NAMES = {
+            "providerCreateStart",
+            "configReadEnd",
+            "configParseEnd",
+            "builderSetupEnd",
+            "initializeStart",
+            "initializeEnd",
+            "providerCreateEnd",
+            "attachedToEngine",
+            "firstListen",
+    };
+
+    private static final AtomicLongArray timestamps = new AtomicLongArray(PHASE_NAMES.length);
+    private static volatile boolean logEnabled = false;
+
+    private StartupMetrics() {
+    }
+
+    static void mark(int phase) {
+        timestamps.compareAndSet(phase, 0, System.nanoTime());
+
+        if (FIRST_LISTEN == phase && logEnabled) {
+            log();
+        }
+    }
+
+    static void setLogEnabled(boolean enabled) {
+        logEnabled = enabled;
+    }
+
+    /**
+     * Raw timestamps per phase, plus the duration of each step in nanos. Missing phases are left out.
+     */
+    @NonNull
+    static Map<String, Object> snapshot() {
+        Map<String, Object> phases = new HashMap<>(PHASE_NAMES.length * 2);
+        for (int i = 0; i < PHASE_NAMES.length; ++i) {
+            long timestamp = timestamps.get(i);
+            if (0 != timestamp) {
+                phases.put(PHASE_NAMES[i], timestamp);
+            }
+        }
+
+        Map<String, Object> durations = new HashMap<>(12);
+        putDuration(durations, "configRead", PROVIDER_CREATE_START, CONFIG_READ_END);
+        putDuration(durations, "configParse", CONFIG_READ_END, CONFIG_PARSE_END);
+        putDuration(durations, "builderSetup", CONFIG_PARSE_END, BUILDER_SETUP_END);
+        putDuration(durations, "initialize", INITIALIZE_START, INITIALIZE_END);
+        putDuration(durations, "providerCreate", PROVIDER_CREATE_START, PROVIDER_CREATE_END);
+        putDuration(durations, "providerToEngineAttach", PROVIDER_CREATE_START, ATTACHED_TO_ENGINE);
+        putDuration(durations, "engineAttachToFirstListen", ATTACHED_TO_ENGINE, FIRST_LISTEN);
+
+        Map<String, Object> metrics = new HashMap<>(3);
+        metrics.put("timestamps", phases);
+        metrics.put("durations", durations);
+        return metrics;
+    }
+
+    private static void putDuration(Map<String, Object> durations, String name, int fromPhase, int toPhase) {
+        long from = timestamps.get(fromPhase);
+        long to = timestamps.get(toPhase);
+        if (0 != from && 0 != to) {
+            durations.put(name, to - from);
+        }
+    }
+
+    private static void log() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> durations = (Map<String, Object>) snapshot().get("durations");
+        for (Map.Entry<String, Object> entry : durations.entrySet()) {
+            Log.d(TAG, entry.getKey() + ": " + ((Long) entry.getValue() / 1000) + "us");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.os.Build;
+import android.os.Trace;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+// android.os.Trace sections around the plugin's push, deep link & bridge work, so it shows up in
+// systrace / Perfetto captures. Off unless enabled in config, in which case the checks are a
+// volatile read. Sections must be begun & ended on the same thread.
+/** package */ class Tracing {
+
+    /**
+     * Async section from an event being sent until it's handed to the native EventSink, including
+     * any time spent queued. Event channels don't acknowledge delivery, so the section doesn't
+     * cover the platform message hop or the Dart listener.
+     */
+    static final String EVENT_DELIVERY_SECTION = "Kumulos.eventDelivery";
+
+    private static volatile boolean enabled = false;
+
+    private Tracing() {
+    }
+
+    static void setEnabled(boolean enabled) {
+        Tracing.enabled = enabled;
+    }
+
+    static boolean isEnabled() {
+        return enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    static void begin(@NonNull String name) {
+        if (enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(name);
+        }
+    }
+
+    /**
+     * Only builds the section name when tracing is enabled
+     */
+    static void begin(@NonNull String prefix, @Nullable String name) {
+        if (enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(prefix + name);
+        }
+    }
+
+    static void end() {
+        if (enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Async sections can end on a different thread to the one they began on. The cookie has to be
+     * unique among sections of the same name that are open at the same time.
+     */
+    static void beginAsync(@NonNull String name, int cookie) {
+        if (enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(name, cookie);
+        }
+    }
+
+    static void endAsync(@NonNull String name, int cookie) {
+        if (enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(name, cookie);
+        }
+    }
+}
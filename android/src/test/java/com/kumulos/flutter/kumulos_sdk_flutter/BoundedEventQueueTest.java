@@ -0,0 +1,127 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class BoundedEventQueueTest {
+
+    @Test
+    public void dropOldestKeepsTheNewestEvents() {
+        BoundedEventQueue queue = new BoundedEventQueue(3, BoundedEventQueue.OverflowPolicy.DROP_OLDEST);
+
+        Map<String, Object> first = event("a", 1);
+        Map<String, Object> second = event("b", 2);
+        assertNull(queue.offer(first, 1));
+        assertNull(queue.offer(second, 2));
+        assertNull(queue.offer(event("c", 3), 3));
+        assertSame(first, queue.offer(event("d", 4), 4));
+        assertSame(second, queue.offer(event("e", 5), 5));
+
+        assertEquals(3, queue.size());
+        assertEquals(3, queue.peekEnqueuedAt());
+        assertEquals(ids(3, 4, 5), drain(queue));
+    }
+
+    @Test
+    public void dropNewestKeepsTheOldestEvents() {
+        BoundedEventQueue queue = new BoundedEventQueue(3, BoundedEventQueue.OverflowPolicy.DROP_NEWEST);
+
+        for (int i = 1; i <= 3; ++i) {
+            assertNull(queue.offer(event("a", i), i));
+        }
+        Map<String, Object> newest = event("a", 4);
+        assertSame(newest, queue.offer(newest, 4));
+        assertEquals(5, ((Map<?, ?>) queue.offer(event("b", 5), 5)).get("id"));
+
+        assertEquals(1, queue.peekEnqueuedAt());
+        assertEquals(ids(1, 2, 3), drain(queue));
+    }
+
+    @Test
+    public void coalesceByTypeReplacesTheOldestEventOfTheSameType() {
+        BoundedEventQueue queue = new BoundedEventQueue(3, BoundedEventQueue.OverflowPolicy.COALESCE_BY_TYPE);
+
+        Map<String, Object> coalesced = event("b", 2);
+        queue.offer(event("a", 1), 1);
+        queue.offer(coalesced, 2);
+        queue.offer(event("b", 3), 3);
+        assertSame(coalesced, queue.offer(event("b", 4), 4));
+
+        assertEquals(1, queue.peekEnqueuedAt());
+        assertEquals(ids(1, 3, 4), drain(queue));
+    }
+
+    @Test
+    public void coalesceByTypeDropsTheOldestWithoutAMatchingType() {
+        BoundedEventQueue queue = new BoundedEventQueue(3, BoundedEventQueue.OverflowPolicy.COALESCE_BY_TYPE);
+
+        queue.offer(event("a", 1), 1);
+        queue.offer(event("b", 2), 2);
+        queue.offer(event("c", 3), 3);
+        assertEquals(1, ((Map<?, ?>) queue.offer(event("d", 4), 4)).get("id"));
+        assertEquals(2, ((Map<?, ?>) queue.offer("untyped", 5)).get("id"));
+
+        assertEquals(3, queue.size());
+        assertEquals(3, queue.peekEnqueuedAt());
+        List<Object> drained = drainRaw(queue);
+        assertEquals(3, ((Map<?, ?>) drained.get(0)).get("id"));
+        assertEquals(4, ((Map<?, ?>) drained.get(1)).get("id"));
+        assertEquals("untyped", drained.get(2));
+    }
+
+    @Test
+    public void shrinkingKeepsTheNewestEvents() {
+        BoundedEventQueue queue = new BoundedEventQueue(4, BoundedEventQueue.OverflowPolicy.DROP_OLDEST);
+        for (int i = 1; i <= 6; ++i) {
+            queue.offer(event("a", i), i);
+        }
+
+        queue.configure(2, BoundedEventQueue.OverflowPolicy.DROP_NEWEST);
+
+        assertEquals(2, queue.capacity());
+        assertEquals(7, ((Map<?, ?>) queue.offer(event("a", 7), 7)).get("id"));
+        assertEquals(ids(5, 6), drain(queue));
+        assertNull(queue.poll());
+        assertEquals(0, queue.peekEnqueuedAt());
+    }
+
+    private static Map<String, Object> event(String type, int id) {
+        Map<String, Object> event = new HashMap<>(2);
+        event.put("type", type);
+        event.put("id", id);
+        return event;
+    }
+
+    private static List<Object> ids(Object... ids) {
+        List<Object> list = new ArrayList<>(ids.length);
+        for (Object id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static List<Object> drain(BoundedEventQueue queue) {
+        List<Object> ids = new ArrayList<>();
+        for (Object event : drainRaw(queue)) {
+            ids.add(((Map<?, ?>) event).get("id"));
+        }
+        return ids;
+    }
+
+    private static List<Object> drainRaw(BoundedEventQueue queue) {
+        List<Object> events = new ArrayList<>();
+        Object event;
+        while (null != (event = queue.poll())) {
+            events.add(event);
+        }
+        return events;
+    }
+}
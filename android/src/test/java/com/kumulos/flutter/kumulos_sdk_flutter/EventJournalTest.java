@@ -0,0 +1,124 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 28)
+public class EventJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private EventJournal journal;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(folder.getRoot(), "events.journal");
+        journal = new EventJournal(file);
+    }
+
+    @Test
+    public void readsBackAppendedEvents() throws Exception {
+        journal.append(event(1));
+        journal.append(event(2));
+
+        List<Map<String, Object>> events = journal.readAll();
+
+        assertEquals(2, events.size());
+        assertEquals(1, events.get(0).get("id"));
+        assertEquals(2, events.get(1).get("id"));
+    }
+
+    @Test
+    public void stopsAtALengthBeyondTheEndOfTheFile() throws Exception {
+        journal.append(event(1));
+        appendHeader(1000);
+
+        assertEquals(1, journal.readAll().size());
+    }
+
+    @Test
+    public void stopsAtANegativeLength() throws Exception {
+        journal.append(event(1));
+        appendHeader(-1);
+        journal.append(event(2));
+
+        assertEquals(1, journal.readAll().size());
+    }
+
+    @Test
+    public void stopsAtALengthOverTheRecordCap() throws Exception {
+        journal.append(event(1));
+        appendHeader(Integer.MAX_VALUE);
+
+        assertEquals(1, journal.readAll().size());
+    }
+
+    @Test
+    public void ignoresATruncatedHeader() throws Exception {
+        journal.append(event(1));
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[]{0, 0});
+        }
+
+        assertEquals(1, journal.readAll().size());
+    }
+
+    @Test
+    public void rewriteReplacesTheJournal() throws Exception {
+        journal.append(event(1));
+        journal.append(event(2));
+
+        List<Map<String, Object>> kept = new ArrayList<>();
+        kept.add(event(2));
+        kept.add(event(3));
+        journal.rewrite(kept);
+        journal.append(event(4));
+
+        List<Map<String, Object>> events = journal.readAll();
+
+        assertEquals(3, events.size());
+        assertEquals(2, events.get(0).get("id"));
+        assertEquals(3, events.get(1).get("id"));
+        assertEquals(4, events.get(2).get("id"));
+    }
+
+    @Test(expected = IOException.class)
+    public void refusesEventsOverTheRecordCap() throws Exception {
+        Map<String, Object> event = event(1);
+        event.put("data", new String(new char[EventJournal.MAX_RECORD_BYTES]).replace('\0', 'x'));
+
+        journal.append(event);
+    }
+
+    private void appendHeader(int length) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true))) {
+            out.writeInt(length);
+        }
+    }
+
+    private static Map<String, Object> event(int id) {
+        Map<String, Object> event = new HashMap<>(2);
+        event.put("type", "push.opened");
+        event.put("id", id);
+        return event;
+    }
+}
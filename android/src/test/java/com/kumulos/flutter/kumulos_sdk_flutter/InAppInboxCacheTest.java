@@ -0,0 +1,131 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import com.kumulos.android.InAppInboxItem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class InAppInboxCacheTest {
+
+    @Test
+    public void readsOncePerRevision() {
+        AtomicInteger loads = new AtomicInteger();
+        InAppInboxCache cache = new InAppInboxCache(context -> {
+            loads.incrementAndGet();
+            return new ArrayList<>();
+        });
+
+        cache.getItems(null);
+        cache.getItems(null);
+        cache.getItem(null, 1);
+        assertEquals(1, loads.get());
+
+        cache.invalidate();
+        cache.getItems(null);
+        cache.getSnapshot(null);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void concurrentCallersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        InAppInboxCache cache = new InAppInboxCache(context -> {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            await(releaseLoad);
+            return new ArrayList<>();
+        });
+
+        int callers = 8;
+        List<Thread> threads = new ArrayList<>();
+        List<InAppInboxCache.Snapshot> results = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(callers);
+        for (int i = 0; i < callers; i++) {
+            Thread thread = new Thread(() -> {
+                InAppInboxCache.Snapshot snapshot = cache.getSnapshot(null);
+                synchronized (results) {
+                    results.add(snapshot);
+                }
+                done.countDown();
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        // Give the remaining callers a chance to block on the in-flight load
+        Thread.sleep(100);
+        releaseLoad.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, loads.get());
+        for (InAppInboxCache.Snapshot snapshot : results) {
+            assertSame(results.get(0), snapshot);
+        }
+    }
+
+    @Test
+    public void updateDuringLoadIsNotCached() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        InAppInboxCache cache = new InAppInboxCache(context -> {
+            if (loads.incrementAndGet() == 1) {
+                loadStarted.countDown();
+                await(releaseLoad);
+            }
+            return new ArrayList<InAppInboxItem>();
+        });
+
+        Thread first = new Thread(() -> cache.getSnapshot(null));
+        first.start();
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        cache.invalidate();
+        releaseLoad.countDown();
+        first.join(5000);
+
+        cache.getSnapshot(null);
+        cache.getSnapshot(null);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void failedLoadReleasesWaiters() {
+        AtomicInteger loads = new AtomicInteger();
+        InAppInboxCache cache = new InAppInboxCache(context -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("read failed");
+            }
+            return new ArrayList<>();
+        });
+
+        try {
+            cache.getSnapshot(null);
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+
+        cache.getSnapshot(null);
+        assertEquals(2, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
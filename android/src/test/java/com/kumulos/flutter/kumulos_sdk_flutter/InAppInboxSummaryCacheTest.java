@@ -0,0 +1,272 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.flutter.plugin.common.MethodChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InAppInboxSummaryCacheTest {
+
+    private final ExecutorService sdkExecutor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        sdkExecutor.shutdownNow();
+    }
+
+    @Test
+    public void staleRefreshIsRetried() {
+        List<InAppInboxSummaryCache.SummaryCallback> loads = new ArrayList<>();
+        InAppInboxSummaryCache cache = new InAppInboxSummaryCache((context, callback) -> loads.add(callback), summary -> {
+        });
+
+        RecordingResult first = new RecordingResult();
+        cache.get(null, first);
+        assertEquals(1, loads.size());
+
+        // A mark as read lands while the first load is in flight, so its counts may predate it
+        cache.onMarkedAsRead(1);
+        loads.get(0).onLoaded(5, 3);
+
+        assertEquals(2, loads.size());
+        assertEquals(0, first.calls);
+
+        loads.get(1).onLoaded(5, 2);
+
+        assertEquals(1, first.calls);
+        assertSummary(5, 2, first.value);
+    }
+
+    @Test
+    public void failedRefreshRepliesNullAndReloads() {
+        List<InAppInboxSummaryCache.SummaryCallback> loads = new ArrayList<>();
+        InAppInboxSummaryCache cache = new InAppInboxSummaryCache((context, callback) -> loads.add(callback), summary -> {
+        });
+
+        RecordingResult failed = new RecordingResult();
+        cache.get(null, failed);
+        loads.get(0).onLoaded(InAppInboxSummaryCache.UNKNOWN, InAppInboxSummaryCache.UNKNOWN);
+
+        assertEquals(1, failed.calls);
+        assertNull(failed.value);
+
+        RecordingResult retried = new RecordingResult();
+        cache.get(null, retried);
+        assertEquals(2, loads.size());
+        loads.get(1).onLoaded(1, 1);
+
+        assertSummary(1, 1, retried.value);
+    }
+
+    @Test
+    public void cachedCountsMatchRecomputedCountsAfterRacingChanges() throws InterruptedException {
+        for (int round = 0; round < 50; ++round) {
+            runRacingChanges(round);
+        }
+    }
+
+    private void runRacingChanges(long seed) throws InterruptedException {
+        FakeInbox inbox = new FakeInbox(20);
+        List<Map<String, Object>> changes = new ArrayList<>();
+        InAppInboxSummaryCache cache = new InAppInboxSummaryCache(inbox::load, summary -> {
+            synchronized (changes) {
+                changes.add(summary);
+            }
+        });
+        inbox.cache = cache;
+
+        RecordingResult seeded = new RecordingResult();
+        cache.get(null, seeded);
+        inbox.awaitIdle();
+        assertEquals(1, seeded.calls);
+
+        List<Thread> mutators = new ArrayList<>();
+        for (int t = 0; t < 4; ++t) {
+            Random random = new Random(seed * 31 + t);
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50; ++i) {
+                    inbox.randomChange(random);
+                }
+            }, "mutator-" + t);
+            mutators.add(thread);
+            thread.start();
+        }
+        for (Thread thread : mutators) {
+            thread.join();
+        }
+        inbox.awaitIdle();
+
+        RecordingResult cached = new RecordingResult();
+        cache.get(null, cached);
+        assertEquals("summary should be answered from the cache", 1, cached.calls);
+
+        int[] recomputed = inbox.counts();
+        assertSummary(recomputed[0], recomputed[1], cached.value);
+
+        synchronized (changes) {
+            for (Map<String, Object> change : changes) {
+                int total = (Integer) change.get("totalCount");
+                int unread = (Integer) change.get("unreadCount");
+                assertTrue("bad change " + change, 0 <= unread && unread <= total);
+            }
+        }
+    }
+
+    private static void assertSummary(int total, int unread, Object summary) {
+        Map<?, ?> map = (Map<?, ?>) summary;
+        assertEquals(total, map.get("totalCount"));
+        assertEquals(unread, map.get("unreadCount"));
+    }
+
+    // Stands in for the SDK's inbox: mutations are applied first and reported to the cache as the
+    // plugin does, then the SDK's inbox updated callback follows asynchronously. Summaries are
+    // computed on a background thread whenever the load actually runs.
+    private class FakeInbox {
+        private final List<Boolean> readFlags = new ArrayList<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        InAppInboxSummaryCache cache;
+
+        FakeInbox(int items) {
+            for (int i = 0; i < items; ++i) {
+                readFlags.add(i % 3 == 0);
+            }
+        }
+
+        synchronized int[] counts() {
+            int unread = 0;
+            for (boolean read : readFlags) {
+                if (!read) {
+                    unread++;
+                }
+            }
+            return new int[]{readFlags.size(), unread};
+        }
+
+        void load(Object context, InAppInboxSummaryCache.SummaryCallback callback) {
+            runOnSdkThread(() -> {
+                int[] counts = counts();
+                Thread.yield();
+                callback.onLoaded(counts[0], counts[1]);
+            });
+        }
+
+        void randomChange(Random random) {
+            switch (random.nextInt(5)) {
+                case 0: {
+                    boolean wasUnread = markAsRead(random);
+                    cache.onMarkedAsRead(wasUnread ? 1 : 0);
+                    break;
+                }
+                case 1: {
+                    int unreadMarked = 0;
+                    for (int i = 0; i < 3; ++i) {
+                        unreadMarked += markAsRead(random) ? 1 : 0;
+                    }
+                    cache.onMarkedAsRead(unreadMarked);
+                    break;
+                }
+                case 2: {
+                    int[] deleted = delete(random);
+                    cache.onDeleted(deleted[0], deleted[1]);
+                    break;
+                }
+                case 3:
+                    markAllAsRead();
+                    cache.onAllMarkedAsRead();
+                    break;
+                default:
+                    // A sync delivered new messages, which only the SDK's update reports
+                    receive(1 + random.nextInt(3));
+                    break;
+            }
+
+            runOnSdkThread(() -> cache.onInboxUpdated(null));
+        }
+
+        private synchronized boolean markAsRead(Random random) {
+            if (readFlags.isEmpty()) {
+                return false;
+            }
+            int index = random.nextInt(readFlags.size());
+            boolean wasUnread = !readFlags.get(index);
+            readFlags.set(index, true);
+            return wasUnread;
+        }
+
+        private synchronized int[] delete(Random random) {
+            if (readFlags.isEmpty()) {
+                return new int[]{0, 0};
+            }
+            boolean wasUnread = !readFlags.remove(random.nextInt(readFlags.size()));
+            return new int[]{1, wasUnread ? 1 : 0};
+        }
+
+        private synchronized void markAllAsRead() {
+            for (int i = 0; i < readFlags.size(); ++i) {
+                readFlags.set(i, true);
+            }
+        }
+
+        private synchronized void receive(int count) {
+            for (int i = 0; i < count; ++i) {
+                readFlags.add(false);
+            }
+        }
+
+        private void runOnSdkThread(Runnable runnable) {
+            pending.incrementAndGet();
+            sdkExecutor.execute(() -> {
+                try {
+                    runnable.run();
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        }
+
+        void awaitIdle() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (pending.get() > 0) {
+                if (System.nanoTime() > deadline) {
+                    fail("SDK work never settled");
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private static class RecordingResult implements MethodChannel.Result {
+        int calls;
+        Object value;
+
+        @Override
+        public void success(Object result) {
+            calls++;
+            value = result;
+        }
+
+        @Override
+        public void error(String errorCode, String errorMessage, Object errorDetails) {
+            calls++;
+        }
+
+        @Override
+        public void notImplemented() {
+            calls++;
+        }
+    }
+}
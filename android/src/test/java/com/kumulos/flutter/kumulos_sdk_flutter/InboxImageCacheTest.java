@@ -0,0 +1,167 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.content.Context;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 28)
+public class InboxImageCacheTest {
+
+    private static final int IMAGE_BYTES = 1000;
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Map<Integer, URL> inbox = new LinkedHashMap<>();
+    private Context context;
+
+    @Before
+    public void setUp() throws IOException {
+        context = RuntimeEnvironment.getApplication();
+        deleteRecursively(directory());
+
+        // Serves /images/<n> as IMAGE_BYTES bytes of n, anything else is a 404
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/images/", exchange -> {
+            requests.incrementAndGet();
+            try {
+                byte fill = Byte.parseByte(exchange.getRequestURI().getPath().substring("/images/".length()));
+                byte[] body = new byte[IMAGE_BYTES];
+                Arrays.fill(body, fill);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (NumberFormatException e) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void downloadsImagesForInboxItems() throws Exception {
+        InboxImageCache cache = newCache(InboxImageCache.DEFAULT_MAX_SIZE_BYTES);
+        inbox.put(1, image("1"));
+        inbox.put(2, null);
+        inbox.put(3, image("missing"));
+
+        cache.prefetchNow(context);
+
+        String path = cache.getLocalPath(1, image("1"));
+        assertNotNull(path);
+        byte[] expected = new byte[IMAGE_BYTES];
+        Arrays.fill(expected, (byte) 1);
+        assertArrayEquals(expected, Files.readAllBytes(new File(path).toPath()));
+
+        assertNull(cache.getLocalPath(2, null));
+        assertNull(cache.getLocalPath(3, image("missing")));
+        // A changed image URL doesn't serve the old file
+        assertNull(cache.getLocalPath(1, image("4")));
+
+        cache.prefetchNow(context);
+        assertEquals("cached images are not downloaded again", 3, requests.get());
+    }
+
+    @Test
+    public void trimsLeastRecentlyUsedImagesToTheSizeCap() throws Exception {
+        InboxImageCache cache = newCache(IMAGE_BYTES * 5 / 2);
+        inbox.put(1, image("1"));
+        inbox.put(2, image("2"));
+        cache.prefetchNow(context);
+
+        long now = System.currentTimeMillis();
+        new File(cache.getLocalPath(1, image("1"))).setLastModified(now - 20000);
+        new File(cache.getLocalPath(2, image("2"))).setLastModified(now - 10000);
+        // Reading the first image makes it the most recently used
+        cache.getLocalPath(1, image("1"));
+
+        inbox.put(3, image("3"));
+        cache.prefetchNow(context);
+
+        assertNotNull(cache.getLocalPath(1, image("1")));
+        assertNull(cache.getLocalPath(2, image("2")));
+        assertNotNull(cache.getLocalPath(3, image("3")));
+        assertEquals(2, directory().listFiles().length);
+    }
+
+    @Test
+    public void evictsImagesForDeletedMessages() throws Exception {
+        InboxImageCache cache = newCache(InboxImageCache.DEFAULT_MAX_SIZE_BYTES);
+        inbox.put(1, image("1"));
+        inbox.put(2, image("2"));
+        cache.prefetchNow(context);
+
+        File first = new File(cache.getLocalPath(1, image("1")));
+        File second = new File(cache.getLocalPath(2, image("2")));
+
+        // Deleted through the plugin
+        cache.evict(1);
+        assertFalse(first.exists());
+        assertNull(cache.getLocalPath(1, image("1")));
+
+        // Deleted elsewhere, so only missing from the next inbox read
+        inbox.remove(1);
+        inbox.remove(2);
+        cache.prefetchNow(context);
+        assertFalse(second.exists());
+        assertNull(cache.getLocalPath(2, image("2")));
+    }
+
+    private InboxImageCache newCache(long maxSizeBytes) {
+        InboxImageCache cache = new InboxImageCache(context -> new LinkedHashMap<>(inbox),
+                InboxImageCache::downloadOverHttp);
+        cache.configure(true, maxSizeBytes);
+        return cache;
+    }
+
+    private URL image(String name) throws IOException {
+        return new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), "/images/" + name);
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (null != children) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    private File directory() {
+        return new File(context.getCacheDir(), "kumulos_inbox_images");
+    }
+}
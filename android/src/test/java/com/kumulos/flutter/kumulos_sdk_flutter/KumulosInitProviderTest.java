@@ -0,0 +1,137 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ReflectionHelpers;
+import org.robolectric.util.ReflectionHelpers.ClassParameter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 28)
+public class KumulosInitProviderTest {
+
+    private Application application;
+    private final List<String> calls = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        application = RuntimeEnvironment.getApplication();
+    }
+
+    @After
+    public void tearDown() {
+        KumulosInitProvider.ensureInitialized();
+    }
+
+    @Test
+    public void deferredInitializationRunsBeforeTheFirstActivityStarts() {
+        int registeredBefore = registeredCallbackCount();
+        KumulosInitProvider.deferInitialization(application, () -> calls.add("initialized"));
+        application.registerActivityLifecycleCallbacks(new RecordingCallbacks());
+
+        Activity activity = new Activity();
+        dispatch("dispatchActivityCreated", activity, ClassParameter.from(Bundle.class, null));
+        dispatch("dispatchActivityStarted", activity);
+
+        assertEquals(Arrays.asList("initialized", "created", "started"), calls);
+
+        // The trigger unregisters itself, leaving only the recording callbacks behind
+        assertEquals(registeredBefore + 1, registeredCallbackCount());
+    }
+
+    @Test
+    public void deferredInitializationRunsOnceLaunchWorkHasDrained() {
+        int registeredBefore = registeredCallbackCount();
+        KumulosInitProvider.deferInitialization(application, () -> calls.add("initialized"));
+
+        assertEquals(0, calls.size());
+        new Handler(Looper.getMainLooper()).post(() -> calls.add("launched"));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(Arrays.asList("launched", "initialized"), calls);
+        assertEquals(registeredBefore, registeredCallbackCount());
+
+        KumulosInitProvider.ensureInitialized();
+
+        assertEquals(2, calls.size());
+    }
+
+    @Test
+    public void ensureInitializedRunsThePendingInitializationFirst() throws InterruptedException {
+        KumulosInitProvider.deferInitialization(application, () -> calls.add("initialized"));
+
+        // As the push receiver & plugin entry points do, from whichever thread they're called on
+        Thread receiver = new Thread(() -> {
+            KumulosInitProvider.ensureInitialized();
+            calls.add("push received");
+        }, "receiver");
+        receiver.start();
+        receiver.join();
+
+        assertEquals(Arrays.asList("initialized", "push received"), calls);
+    }
+
+    // As Activity.onCreate() & onStart() do
+    private void dispatch(String method, Activity activity, ClassParameter<?>... extra) {
+        ClassParameter<?>[] parameters = new ClassParameter<?>[1 + extra.length];
+        parameters[0] = ClassParameter.from(Activity.class, activity);
+        System.arraycopy(extra, 0, parameters, 1, extra.length);
+        ReflectionHelpers.callInstanceMethod(application, method, parameters);
+    }
+
+    private int registeredCallbackCount() {
+        List<?> callbacks = ReflectionHelpers.getField(application, "mActivityLifecycleCallbacks");
+        return callbacks.size();
+    }
+
+    private class RecordingCallbacks implements Application.ActivityLifecycleCallbacks {
+        @Override
+        public void onActivityCreated(@NonNull Activity activity, Bundle savedInstanceState) {
+            calls.add("created");
+        }
+
+        @Override
+        public void onActivityStarted(@NonNull Activity activity) {
+            calls.add("started");
+        }
+
+        @Override
+        public void onActivityResumed(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(@NonNull Activity activity) {
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.embedding.engine.plugins.FlutterPlugin;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 28)
+public class KumulosSdkFlutterPluginEnginesTest {
+
+    @Test
+    public void countsAttachedEngines() {
+        KumulosSdkFlutterPlugin first = new KumulosSdkFlutterPlugin();
+        KumulosSdkFlutterPlugin second = new KumulosSdkFlutterPlugin();
+        FlutterPlugin.FlutterPluginBinding firstBinding = binding();
+        FlutterPlugin.FlutterPluginBinding secondBinding = binding();
+
+        assertFalse(KumulosSdkFlutterPlugin.isAttachedToEngine());
+
+        first.onAttachedToEngine(firstBinding);
+        second.onAttachedToEngine(secondBinding);
+        first.onDetachedFromEngine(firstBinding);
+
+        assertTrue(KumulosSdkFlutterPlugin.isAttachedToEngine());
+
+        second.onDetachedFromEngine(secondBinding);
+
+        assertFalse(KumulosSdkFlutterPlugin.isAttachedToEngine());
+    }
+
+    @Test
+    public void detachingEngineKeepsTheNewerEnginesListener() {
+        QueueingEventStreamHandler shared = new QueueingEventStreamHandler(new Handler(Looper.getMainLooper()));
+        KumulosSdkFlutterPlugin.EngineStreamHandler firstEngine = new KumulosSdkFlutterPlugin.EngineStreamHandler(shared);
+        KumulosSdkFlutterPlugin.EngineStreamHandler secondEngine = new KumulosSdkFlutterPlugin.EngineStreamHandler(shared);
+        RecordingSink firstSink = new RecordingSink();
+        RecordingSink secondSink = new RecordingSink();
+
+        firstEngine.onListen(null, firstSink);
+        secondEngine.onListen(null, secondSink);
+        firstEngine.onCancel(null);
+
+        shared.send(event("push.opened"));
+
+        assertEquals(0, firstSink.events.size());
+        assertEquals(1, secondSink.events.size());
+        assertEquals(0, shared.getQueueStats().get("queued"));
+    }
+
+    @Test
+    public void cancellingTheListeningEngineQueuesEvents() {
+        QueueingEventStreamHandler shared = new QueueingEventStreamHandler(new Handler(Looper.getMainLooper()));
+        KumulosSdkFlutterPlugin.EngineStreamHandler engine = new KumulosSdkFlutterPlugin.EngineStreamHandler(shared);
+        RecordingSink sink = new RecordingSink();
+
+        engine.onListen(null, sink);
+        engine.onCancel(null);
+        // Detaching after Dart already cancelled is a no-op
+        engine.onCancel(null);
+
+        shared.send(event("push.opened"));
+
+        assertEquals(0, sink.events.size());
+        assertEquals(1, shared.getQueueStats().get("queued"));
+    }
+
+    @Test
+    public void detachingEngineKeepsTheNewerEnginesInAppListener() {
+        KumulosSdkFlutterPlugin.InAppEventStreamHandler shared = new KumulosSdkFlutterPlugin.InAppEventStreamHandler();
+        KumulosSdkFlutterPlugin.EngineStreamHandler firstEngine = new KumulosSdkFlutterPlugin.EngineStreamHandler(shared);
+        KumulosSdkFlutterPlugin.EngineStreamHandler secondEngine = new KumulosSdkFlutterPlugin.EngineStreamHandler(shared);
+        RecordingSink firstSink = new RecordingSink();
+        RecordingSink secondSink = new RecordingSink();
+
+        firstEngine.onListen(null, firstSink);
+        secondEngine.onListen(null, secondSink);
+        firstEngine.onCancel(null);
+
+        shared.send(event("summary.changed"));
+
+        assertEquals(0, firstSink.events.size());
+        assertEquals(1, secondSink.events.size());
+    }
+
+    private static Map<String, Object> event(String type) {
+        Map<String, Object> event = new HashMap<>(1);
+        event.put("type", type);
+        return event;
+    }
+
+    private static FlutterPlugin.FlutterPluginBinding binding() {
+        return new FlutterPlugin.FlutterPluginBinding(
+                RuntimeEnvironment.getApplication(), null, new NoopBinaryMessenger(), null, null, null);
+    }
+
+    private static class RecordingSink implements EventChannel.EventSink {
+        final List<Object> events = new ArrayList<>();
+
+        @Override
+        public void success(Object event) {
+            events.add(event);
+        }
+
+        @Override
+        public void error(String errorCode, String errorMessage, Object errorDetails) {
+        }
+
+        @Override
+        public void endOfStream() {
+        }
+    }
+
+    private static class NoopBinaryMessenger implements BinaryMessenger {
+        @Override
+        public void send(String channel, ByteBuffer message) {
+        }
+
+        @Override
+        public void send(String channel, ByteBuffer message, BinaryReply callback) {
+        }
+
+        @Override
+        public void setMessageHandler(String channel, BinaryMessageHandler handler) {
+        }
+    }
+}
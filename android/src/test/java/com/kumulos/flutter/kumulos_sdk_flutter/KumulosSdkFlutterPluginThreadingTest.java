@@ -0,0 +1,162 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import io.flutter.embedding.engine.plugins.FlutterPlugin;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 28)
+public class KumulosSdkFlutterPluginThreadingTest {
+
+    private KumulosSdkFlutterPlugin plugin;
+    private FlutterPlugin.FlutterPluginBinding binding;
+
+    @Before
+    public void setUp() {
+        plugin = new KumulosSdkFlutterPlugin();
+        binding = new FlutterPlugin.FlutterPluginBinding(
+                RuntimeEnvironment.getApplication(), null, new NoopBinaryMessenger(), null, null, null);
+        plugin.onAttachedToEngine(binding);
+    }
+
+    @After
+    public void tearDown() {
+        plugin.onDetachedFromEngine(binding);
+    }
+
+    @Test
+    public void mainThreadMethodsAnswerOnTheCallingLooper() {
+        RecordingResult result = new RecordingResult();
+
+        plugin.onMethodCall(new MethodCall("getBridgeMetrics", null), result);
+
+        assertEquals(1, result.calls);
+        assertSame(Looper.getMainLooper(), result.looper);
+        assertSame(Thread.currentThread(), result.thread);
+    }
+
+    @Test
+    public void backgroundMethodsAnswerOnTheMainLooper() throws InterruptedException {
+        RecordingResult result = new RecordingResult();
+
+        plugin.onMethodCall(new MethodCall("getInstallId", null), result);
+
+        // The call runs on the bridge thread & its reply is posted back, so nothing arrives synchronously
+        assertEquals(0, result.calls);
+
+        awaitResult(result);
+
+        assertEquals(1, result.calls);
+        assertSame(Looper.getMainLooper(), result.looper);
+    }
+
+    @Test
+    public void mainThreadResultPostsRepliesFromOtherThreads() throws InterruptedException {
+        RecordingResult result = new RecordingResult();
+        KumulosSdkFlutterPlugin.MainThreadResult mainThreadResult = new KumulosSdkFlutterPlugin.MainThreadResult(result);
+
+        Thread worker = new Thread(() -> mainThreadResult.success("value"), "worker");
+        worker.start();
+        worker.join();
+
+        assertEquals(0, result.calls);
+
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(1, result.calls);
+        assertSame(Looper.getMainLooper(), result.looper);
+        assertSame(Thread.currentThread(), result.thread);
+    }
+
+    @Test
+    public void mainThreadResultAnswersDirectlyOnTheMainThread() {
+        RecordingResult result = new RecordingResult();
+
+        new KumulosSdkFlutterPlugin.MainThreadResult(result).error("code", null, null);
+
+        assertEquals(1, result.calls);
+        assertSame(Looper.getMainLooper(), result.looper);
+    }
+
+    @Test
+    public void unimplementedMethodsAreRecordedInBridgeMetrics() throws InterruptedException {
+        BridgeMetrics.reset();
+        RecordingResult result = new RecordingResult();
+
+        plugin.onMethodCall(new MethodCall("noSuchMethod", null), result);
+        awaitResult(result);
+
+        assertEquals(1, result.calls);
+        Map<?, ?> methods = (Map<?, ?>) BridgeMetrics.snapshot().get("methods");
+        Map<?, ?> method = (Map<?, ?>) methods.get("noSuchMethod");
+        assertEquals(1L, method.get("count"));
+        assertEquals(1L, ((Map<?, ?>) method.get("outcomes")).get("notImplemented"));
+    }
+
+    private static void awaitResult(RecordingResult result) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (result.calls == 0 && System.currentTimeMillis() < deadline) {
+            shadowOf(Looper.getMainLooper()).idle();
+            Thread.sleep(10);
+        }
+    }
+
+    private static class RecordingResult implements MethodChannel.Result {
+        int calls;
+        Looper looper;
+        Thread thread;
+
+        private void record() {
+            calls++;
+            looper = Looper.myLooper();
+            thread = Thread.currentThread();
+        }
+
+        @Override
+        public void success(Object result) {
+            record();
+        }
+
+        @Override
+        public void error(String errorCode, String errorMessage, Object errorDetails) {
+            record();
+        }
+
+        @Override
+        public void notImplemented() {
+            record();
+        }
+    }
+
+    private static class NoopBinaryMessenger implements BinaryMessenger {
+        @Override
+        public void send(String channel, ByteBuffer message) {
+        }
+
+        @Override
+        public void send(String channel, ByteBuffer message, BinaryReply callback) {
+        }
+
+        @Override
+        public void setMessageHandler(String channel, BinaryMessageHandler handler) {
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.net.Uri;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 28)
+public class MessageMapperTest {
+
+    @After
+    public void tearDown() {
+        JsonUtils.setLimits(JsonUtils.DEFAULT_MAX_DEPTH, JsonUtils.UNLIMITED);
+    }
+
+    @Test
+    public void overDeepPushDataIsSentAsNullWithTheRestOfTheMessage() throws JSONException {
+        Map<String, Object> mapped = MessageMapper.pushMessageToMap(7, "Title", "Body",
+                nested(JsonUtils.DEFAULT_MAX_DEPTH + 8), Uri.parse("https://example.com/deal"), "buy");
+
+        assertTrue(mapped.containsKey("data"));
+        assertNull(mapped.get("data"));
+        assertEquals(7, mapped.get("id"));
+        assertEquals("Title", mapped.get("title"));
+        assertEquals("Body", mapped.get("message"));
+        assertEquals("buy", mapped.get("actionId"));
+        assertEquals("https://example.com/deal", mapped.get("url"));
+    }
+
+    @Test
+    public void pushDataWithinTheLimitsIsConverted() throws JSONException {
+        Map<String, Object> mapped = MessageMapper.pushMessageToMap(7, "Title", "Body",
+                nested(JsonUtils.DEFAULT_MAX_DEPTH - 1), null, null);
+
+        Object level = mapped.get("data");
+        for (int i = 0; i < JsonUtils.DEFAULT_MAX_DEPTH - 1; ++i) {
+            level = ((Map<?, ?>) level).get("child");
+        }
+        assertEquals(1, ((Map<?, ?>) level).get("leaf"));
+        assertNull(mapped.get("url"));
+    }
+
+    @Test
+    public void overLargeDataIsSentAsNull() throws JSONException {
+        JsonUtils.setLimits(JsonUtils.DEFAULT_MAX_DEPTH, 3);
+        JSONObject data = new JSONObject();
+        for (int i = 0; i < 5; ++i) {
+            data.put("k" + i, i);
+        }
+
+        assertNull(MessageMapper.encodePayload(data));
+        assertNull(MessageMapper.encodePayload(nested(JsonUtils.DEFAULT_MAX_DEPTH + 1)));
+    }
+
+    private static JSONObject nested(int depth) throws JSONException {
+        JSONObject data = new JSONObject().put("leaf", 1);
+        for (int i = 0; i < depth; ++i) {
+            data = new JSONObject().put("child", data);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,286 @@
+package com.kumulos.flutter.kumulos_sdk_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.flutter.plugin.common.EventChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 28)
+public class QueueingEventStreamHandlerTest {
+
+    private static final int SENDERS = 4;
+    private static final int EVENTS_PER_SENDER = 50;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void concurrentSendsAreQueuedInOrderUntilListening() throws InterruptedException {
+        QueueingEventStreamHandler handler = new QueueingEventStreamHandler(new Handler(Looper.getMainLooper()));
+        handler.configureQueue(SENDERS * EVENTS_PER_SENDER, BoundedEventQueue.OverflowPolicy.DROP_OLDEST);
+
+        sendConcurrently(handler);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        RecordingSink sink = new RecordingSink();
+        handler.onListen(null, sink);
+
+        assertDeliveredInSendOrder(sink.events);
+        assertSame(Looper.getMainLooper(), sink.looper);
+
+        Map<String, Object> stats = handler.getQueueStats();
+        assertEquals((long) SENDERS * EVENTS_PER_SENDER, stats.get("enqueued"));
+        assertEquals((long) SENDERS * EVENTS_PER_SENDER, stats.get("delivered"));
+        assertEquals(0L, stats.get("dropped"));
+        assertEquals(0, stats.get("queued"));
+    }
+
+    @Test
+    public void concurrentSendsToAListenerAreDeliveredOnTheMainThread() throws InterruptedException {
+        QueueingEventStreamHandler handler = new QueueingEventStreamHandler(new Handler(Looper.getMainLooper()));
+        RecordingSink sink = new RecordingSink();
+        handler.onListen(null, sink);
+
+        sendConcurrently(handler);
+
+        // Sends from other threads are posted, so nothing arrives until the main looper runs
+        assertEquals(0, sink.events.size());
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertDeliveredInSendOrder(sink.events);
+        assertSame(Looper.getMainLooper(), sink.looper);
+        assertEquals((long) SENDERS * EVENTS_PER_SENDER, handler.getQueueStats().get("delivered"));
+    }
+
+    @Test
+    public void concurrentSendsBeyondCapacityCountDrops() throws InterruptedException {
+        QueueingEventStreamHandler handler = new QueueingEventStreamHandler(new Handler(Looper.getMainLooper()));
+        handler.configureQueue(10, BoundedEventQueue.OverflowPolicy.DROP_NEWEST);
+
+        sendConcurrently(handler);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        RecordingSink sink = new RecordingSink();
+        handler.onListen(null, sink);
+
+        assertEquals(10, sink.events.size());
+        Map<String, Object> stats = handler.getQueueStats();
+        assertEquals((long) SENDERS * EVENTS_PER_SENDER - 10, stats.get("dropped"));
+        assertEquals(10L, stats.get("delivered"));
+    }
+
+    @Test
+    public void sendIfListeningOnlyBuildsEventsForAListener() throws InterruptedException {
+        QueueingEventStreamHandler handler = new QueueingEventStreamHandler(new Handler(Looper.getMainLooper()));
+        AtomicInteger conversions = new AtomicInteger();
+        QueueingEventStreamHandler.EventFactory factory = () -> {
+            conversions.incrementAndGet();
+            Map<String, Object> event = new HashMap<>(1);
+            event.put("type", "push.received");
+            return event;
+        };
+
+        handler.sendIfListening(factory);
+        sendFromWorker(handler, factory);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(0, conversions.get());
+        assertEquals(0L, handler.getQueueStats().get("enqueued"));
+
+        RecordingSink sink = new RecordingSink();
+        handler.onListen(null, sink);
+
+        handler.sendIfListening(factory);
+        sendFromWorker(handler, factory);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(2, conversions.get());
+        assertEquals(2, sink.events.size());
+
+        handler.onCancel(null);
+
+        handler.sendIfListening(factory);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(2, conversions.get());
+    }
+
+    @Test
+    public void journalWritesRunOnTheJournalExecutor() throws Exception {
+        List<Runnable> journalTasks = new ArrayList<>();
+        QueueingEventStreamHandler handler = new QueueingEventStreamHandler(new Handler(Looper.getMainLooper()), journalTasks::add);
+        File file = new File(folder.getRoot(), "events.journal");
+        handler.configureJournal(new EventJournal(file));
+
+        handler.send(event("push.opened", 1));
+
+        assertEquals(1, journalTasks.size());
+        assertFalse(file.exists());
+
+        journalTasks.get(0).run();
+        assertEquals(ids(1), ids(new EventJournal(file).readAll()));
+    }
+
+    @Test
+    public void droppedEventsAreCompactedOutOfTheJournal() throws Exception {
+        List<Runnable> journalTasks = new ArrayList<>();
+        QueueingEventStreamHandler handler = new QueueingEventStreamHandler(new Handler(Looper.getMainLooper()), journalTasks::add);
+        handler.configureQueue(2, BoundedEventQueue.OverflowPolicy.DROP_OLDEST);
+        File file = new File(folder.getRoot(), "events.journal");
+        handler.configureJournal(new EventJournal(file));
+
+        for (int i = 1; i <= 4; ++i) {
+            handler.send(event("push.opened", i));
+        }
+
+        // Two appends, then a single compaction covers both drops and the events that caused them
+        assertEquals(3, journalTasks.size());
+        runAll(journalTasks);
+        assertEquals(ids(3, 4), ids(new EventJournal(file).readAll()));
+
+        handler.send(event("push.opened", 5));
+        runAll(journalTasks);
+        assertEquals(ids(4, 5), ids(new EventJournal(file).readAll()));
+    }
+
+    @Test
+    public void coalescedEventsAreCompactedOutOfTheJournal() throws Exception {
+        QueueingEventStreamHandler handler = new QueueingEventStreamHandler(new Handler(Looper.getMainLooper()));
+        handler.configureQueue(2, BoundedEventQueue.OverflowPolicy.COALESCE_BY_TYPE);
+        File file = new File(folder.getRoot(), "events.journal");
+        handler.configureJournal(new EventJournal(file));
+
+        handler.send(event("push.opened", 1));
+        handler.send(event("deep-linking.linkResolved", 2));
+        handler.send(event("push.opened", 3));
+
+        assertEquals(ids(2, 3), ids(new EventJournal(file).readAll()));
+
+        // Restoring into a smaller queue drops the oldest, which shouldn't come back again
+        QueueingEventStreamHandler restarted = new QueueingEventStreamHandler(new Handler(Looper.getMainLooper()));
+        restarted.configureQueue(1, BoundedEventQueue.OverflowPolicy.DROP_OLDEST);
+        restarted.configureJournal(new EventJournal(file));
+
+        assertEquals(ids(3), ids(new EventJournal(file).readAll()));
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        tasks.clear();
+    }
+
+    private static Map<String, Object> event(String type, int id) {
+        Map<String, Object> event = new HashMap<>(2);
+        event.put("type", type);
+        event.put("id", id);
+        return event;
+    }
+
+    private static List<Object> ids(Object... ids) {
+        List<Object> list = new ArrayList<>(ids.length);
+        for (Object id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static List<Object> ids(List<Map<String, Object>> events) {
+        List<Object> ids = new ArrayList<>(events.size());
+        for (Map<String, Object> event : events) {
+            ids.add(event.get("id"));
+        }
+        return ids;
+    }
+
+    private static void sendFromWorker(QueueingEventStreamHandler handler, QueueingEventStreamHandler.EventFactory factory)
+            throws InterruptedException {
+        Thread worker = new Thread(() -> handler.sendIfListening(factory), "worker");
+        worker.start();
+        worker.join();
+    }
+
+    private static void sendConcurrently(QueueingEventStreamHandler handler) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> senders = new ArrayList<>(SENDERS);
+        for (int s = 0; s < SENDERS; ++s) {
+            int sender = s;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < EVENTS_PER_SENDER; ++i) {
+                    Map<String, Object> event = new HashMap<>(3);
+                    event.put("type", "test");
+                    event.put("sender", sender);
+                    event.put("index", i);
+                    handler.send(event);
+                }
+            }, "sender-" + s);
+            senders.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+        for (Thread thread : senders) {
+            thread.join();
+        }
+    }
+
+    private static void assertDeliveredInSendOrder(List<Object> events) {
+        assertEquals(SENDERS * EVENTS_PER_SENDER, events.size());
+
+        int[] nextIndex = new int[SENDERS];
+        for (Object event : events) {
+            Map<?, ?> map = (Map<?, ?>) event;
+            int sender = (Integer) map.get("sender");
+            assertEquals(nextIndex[sender]++, map.get("index"));
+        }
+        for (int sent : nextIndex) {
+            assertEquals(EVENTS_PER_SENDER, sent);
+        }
+    }
+
+    private static class RecordingSink implements EventChannel.EventSink {
+        final List<Object> events = new ArrayList<>();
+        Looper looper;
+
+        @Override
+        public void success(Object event) {
+            events.add(event);
+            looper = Looper.myLooper();
+        }
+
+        @Override
+        public void error(String errorCode, String errorMessage, Object errorDetails) {
+        }
+
+        @Override
+        public void endOfStream() {
+        }
+    }
+}
@@ -199,10 +199,7 @@ static const NSString* KSFlutterSdkVersion = @"1.2.1";
         return;
     } else if ([@"associateUserWithInstall" isEqualToString:call.method]) {
         NSString* identifier = call.arguments[@"id"];
-        NSDictionary* attributes = nil;
-        if (call.arguments[@"attrs"] != NSNull.null){
-            attributes = call.arguments[@"attrs"];
-        }
+        NSDictionary* attributes = [KumulosSdkFlutterPlugin propsFromArgument:call.arguments[@"attrs"]];
 
         if (attributes) {
           [Kumulos.shared associateUserWithInstall:identifier attributes:attributes];
@@ -220,10 +217,7 @@ static const NSString* KSFlutterSdkVersion = @"1.2.1";
     } else if ([@"trackEvent" isEqualToString:call.method]) {
         NSString* type = call.arguments[@"type"];
         NSNumber* immediateFlush = call.arguments[@"flush"];
-        NSDictionary* props = nil;
-        if (call.arguments[@"props"] != NSNull.null){
-            props = call.arguments[@"props"];
-        }
+        NSDictionary* props = [KumulosSdkFlutterPlugin propsFromArgument:call.arguments[@"props"]];
 
         if (immediateFlush.boolValue) {
             [Kumulos.shared trackEventImmediately:type withProperties:props];
@@ -231,6 +225,32 @@ static const NSString* KSFlutterSdkVersion = @"1.2.1";
             [Kumulos.shared trackEvent:type withProperties:props];
         }
 
+        result(nil);
+        return;
+    } else if ([@"trackEvents" isEqualToString:call.method]) {
+        NSArray<NSDictionary*>* events = call.arguments;
+
+        // Flushing sends everything queued before it, so one immediate track covers the whole batch
+        NSInteger flushIndex = -1;
+        for (NSInteger i = events.count - 1; i >= 0; --i) {
+            NSNumber* immediateFlush = events[i][@"flush"];
+            if (immediateFlush.boolValue) {
+                flushIndex = i;
+                break;
+            }
+        }
+
+        for (NSInteger i = 0; i < events.count; ++i) {
+            NSString* type = events[i][@"type"];
+            NSDictionary* props = [KumulosSdkFlutterPlugin propsFromArgument:events[i][@"props"]];
+
+            if (i == flushIndex) {
+                [Kumulos.shared trackEventImmediately:type withProperties:props];
+            } else {
+                [Kumulos.shared trackEvent:type withProperties:props];
+            }
+        }
+
         result(nil);
         return;
     } else if ([@"sendLocationUpdate" isEqualToString:call.method]) {
@@ -239,6 +259,26 @@ static const NSString* KSFlutterSdkVersion = @"1.2.1";
         CLLocation* point = [[CLLocation alloc] initWithLatitude:lat.doubleValue longitude:lng.doubleValue];
         [Kumulos.shared sendLocationUpdate:point];
 
+        result(nil);
+        return;
+    } else if ([@"sendLocationUpdates" isEqualToString:call.method]) {
+        NSArray* updates = call.arguments;
+        for (NSDictionary* update in updates) {
+            NSNumber* lat = update[@"lat"];
+            NSNumber* lng = update[@"lng"];
+            id time = update[@"time"];
+            NSDate* timestamp = [time isKindOfClass:NSNumber.class]
+                ? [NSDate dateWithTimeIntervalSince1970:[time doubleValue] / 1000]
+                : [NSDate date];
+
+            CLLocation* point = [[CLLocation alloc] initWithCoordinate:CLLocationCoordinate2DMake(lat.doubleValue, lng.doubleValue)
+                                                              altitude:0
+                                                    horizontalAccuracy:0
+                                                      verticalAccuracy:-1
+                                                             timestamp:timestamp];
+            [Kumulos.shared sendLocationUpdate:point];
+        }
+
         result(nil);
         return;
     } else if ([@"pushRequestDeviceToken" isEqualToString:call.method]) {
@@ -258,30 +298,18 @@ static const NSString* KSFlutterSdkVersion = @"1.2.1";
         result(nil);
         return;
     } else if ([@"inAppGetInboxItems" isEqualToString:call.method]) {
-        NSArray<KSInAppInboxItem*>* inboxItems = [KumulosInApp getInboxItems];
-        NSMutableArray<NSDictionary*>* items = [[NSMutableArray alloc] initWithCapacity:inboxItems.count];
-
-        NSDateFormatter* formatter = [NSDateFormatter new];
-        [formatter setTimeStyle:NSDateFormatterFullStyle];
-        [formatter setDateFormat:@"yyyy-MM-dd'T'HH:mm:ssZZZZZ"];
-        [formatter setTimeZone:[NSTimeZone timeZoneForSecondsFromGMT:0]];
-
-        for (KSInAppInboxItem* item in inboxItems) {
-            [items addObject:@{@"id": item.id,
-                               @"title": item.title,
-                               @"subtitle": item.subtitle,
-                               @"sentAt": [formatter stringFromDate:item.sentAt],
-                               @"availableFrom": item.availableFrom ? [formatter stringFromDate:item.availableFrom] : NSNull.null,
-                               @"availableTo": item.availableTo ? [formatter stringFromDate:item.availableTo] : NSNull.null,
-                               @"dismissedAt": item.dismissedAt ? [formatter stringFromDate:item.dismissedAt] : NSNull.null,
-                               @"data": item.data ?: NSNull.null,
-                               @"isRead": @(item.isRead),
-                               @"imageUrl": [item getImageUrl] ? [item getImageUrl].absoluteString : NSNull.null
-            }];
-        }
+        NSArray<NSDictionary*>* items = [KumulosSdkFlutterPlugin inboxItemsToArray:[KumulosInApp getInboxItems]];
 
         result(items);
         return;
+    } else if ([@"inAppGetInboxChanges" isEqualToString:call.method]) {
+        // Revisions aren't tracked on iOS, so always reply with the full inbox
+        result(@{@"revision": @(0),
+                 @"reset": @(YES),
+                 @"items": [KumulosSdkFlutterPlugin inboxItemsToArray:[KumulosInApp getInboxItems]],
+                 @"removedIds": @[]
+               });
+        return;
     } else if ([@"inAppPresentInboxMessage" isEqualToString:call.method]) {
         NSNumber* ident = call.arguments;
         KSInAppMessagePresentationResult presentationResult = KSInAppMessagePresentationFailed;
@@ -324,6 +352,28 @@ static const NSString* KSFlutterSdkVersion = @"1.2.1";
 
         result(@(opResult));
         return;
+    } else if ([@"inAppMarkAsReadBatch" isEqualToString:call.method] || [@"inAppDeleteBatch" isEqualToString:call.method]) {
+        NSArray<NSNumber*>* idents = call.arguments;
+        BOOL markAsRead = [@"inAppMarkAsReadBatch" isEqualToString:call.method];
+
+        NSArray<KSInAppInboxItem*>* inboxItems = [KumulosInApp getInboxItems];
+        NSMutableDictionary<NSNumber*, KSInAppInboxItem*>* itemsById = [NSMutableDictionary dictionaryWithCapacity:inboxItems.count];
+        for (KSInAppInboxItem* msg in inboxItems) {
+            itemsById[msg.id] = msg;
+        }
+
+        NSMutableArray<NSNumber*>* results = [NSMutableArray arrayWithCapacity:idents.count];
+        for (NSNumber* ident in idents) {
+            KSInAppInboxItem* msg = itemsById[ident];
+            BOOL opResult = NO;
+            if (msg != nil) {
+                opResult = markAsRead ? [KumulosInApp markAsRead:msg] : [KumulosInApp deleteMessageFromInbox:msg];
+            }
+            [results addObject:@(opResult)];
+        }
+
+        result(results);
+        return;
     } else if ([@"inAppMarkAllInboxItemsAsRead" isEqualToString:call.method]) {
         BOOL opResult = [KumulosInApp markAllInboxItemsAsRead];
 
@@ -336,6 +386,17 @@ static const NSString* KSFlutterSdkVersion = @"1.2.1";
                    });
         }];
 
+        return;
+    } else if ([@"getStartupMetrics" isEqualToString:call.method]) {
+        // Startup phases are only instrumented on Android
+        result(@{});
+        return;
+    } else if ([@"getBridgeMetrics" isEqualToString:call.method]) {
+        // Bridge metrics are only recorded on Android
+        result(@{});
+        return;
+    } else if ([@"resetBridgeMetrics" isEqualToString:call.method]) {
+        result(nil);
         return;
     } else if ([@"reportCrash" isEqualToString:call.method]) {
         NSString* error = call.arguments[@"error"];
@@ -360,6 +421,56 @@ static const NSString* KSFlutterSdkVersion = @"1.2.1";
     result(FlutterMethodNotImplemented);
 }
 
+#pragma mark Analytics
+
+// Properties arrive either as a dictionary, or as UTF-8 JSON bytes when pre-encoded on the Dart side
++ (NSDictionary* _Nullable) propsFromArgument:(id)props {
+    if ([props isKindOfClass:FlutterStandardTypedData.class]) {
+        NSError* err = nil;
+        id decoded = [NSJSONSerialization JSONObjectWithData:((FlutterStandardTypedData*) props).data options:0 error:&err];
+
+        if (err != nil || ![decoded isKindOfClass:NSDictionary.class]) {
+            NSLog(@"Failed to decode properties: %@", err);
+            return nil;
+        }
+
+        return decoded;
+    }
+
+    if (props == NSNull.null) {
+        return nil;
+    }
+
+    return props;
+}
+
+#pragma mark In-app
+
++ (NSArray<NSDictionary*>*) inboxItemsToArray:(NSArray<KSInAppInboxItem*>*)inboxItems {
+    NSMutableArray<NSDictionary*>* items = [[NSMutableArray alloc] initWithCapacity:inboxItems.count];
+
+    NSDateFormatter* formatter = [NSDateFormatter new];
+    [formatter setTimeStyle:NSDateFormatterFullStyle];
+    [formatter setDateFormat:@"yyyy-MM-dd'T'HH:mm:ssZZZZZ"];
+    [formatter setTimeZone:[NSTimeZone timeZoneForSecondsFromGMT:0]];
+
+    for (KSInAppInboxItem* item in inboxItems) {
+        [items addObject:@{@"id": item.id,
+                           @"title": item.title,
+                           @"subtitle": item.subtitle,
+                           @"sentAt": [formatter stringFromDate:item.sentAt],
+                           @"availableFrom": item.availableFrom ? [formatter stringFromDate:item.availableFrom] : NSNull.null,
+                           @"availableTo": item.availableTo ? [formatter stringFromDate:item.availableTo] : NSNull.null,
+                           @"dismissedAt": item.dismissedAt ? [formatter stringFromDate:item.dismissedAt] : NSNull.null,
+                           @"data": item.data ?: NSNull.null,
+                           @"isRead": @(item.isRead),
+                           @"imageUrl": [item getImageUrl] ? [item getImageUrl].absoluteString : NSNull.null
+        }];
+    }
+
+    return items;
+}
+
 #pragma mark Push
 
 - (BOOL)application:(UIApplication *)application didReceiveRemoteNotification:(NSDictionary *)userInfo fetchCompletionHandler:(void (^)(UIBackgroundFetchResult))completionHandler {
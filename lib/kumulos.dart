@@ -1,5 +1,9 @@
 import 'dart:async';
+import 'dart:convert';
+import 'dart:developer' show Timeline;
+import 'dart:typed_data';
 
+import 'package:flutter/foundation.dart' show ReadBuffer, compute;
 import 'package:flutter/material.dart';
 import 'package:flutter/services.dart';
 import 'package:kumulos_sdk_flutter/backend.dart';
@@ -8,20 +12,55 @@ import './push.dart';
 class KumulosPushNotification {
   final String? title;
   final String? message;
-  final Map<String, dynamic>? data;
   final String? url;
   final String? actionId;
 
-  KumulosPushNotification(
-      this.title, this.message, this.data, this.url, this.actionId);
+  // Either a map, or UTF-8 JSON when Android's rawJsonPayloads is enabled
+  final Object? _data;
+  Map<String, dynamic>? _decodedData;
+
+  KumulosPushNotification(this.title, this.message,
+      Map<String, dynamic>? data, this.url, this.actionId)
+      : _data = data;
 
   KumulosPushNotification.fromMap(Map<String, dynamic> map)
       : title = map['title'],
         message = map['message'],
-        data =
-            map['data'] != null ? Map<String, dynamic>.from(map['data']) : null,
+        _data = map['data'],
         url = map['url'],
         actionId = map['actionId'];
+
+  /// The push data payload, decoded on first access if it was sent as raw
+  /// JSON.
+  Map<String, dynamic>? get data {
+    if (_decodedData == null && _data != null) {
+      _decodedData = _data is Uint8List
+          ? _decodeJsonObject(_data as Uint8List)
+          : Map<String, dynamic>.from(_data as Map);
+    }
+    return _decodedData;
+  }
+
+  /// The push data payload as UTF-8 JSON, when Android's rawJsonPayloads is
+  /// enabled. Large payloads can be decoded off the UI isolate with
+  /// [decodeDataInBackground].
+  Uint8List? get rawData => _data is Uint8List ? _data as Uint8List : null;
+
+  /// Decodes a raw JSON payload on a background isolate, otherwise returns
+  /// [data].
+  Future<Map<String, dynamic>?> decodeDataInBackground() async {
+    var raw = rawData;
+    if (raw == null || _decodedData != null) {
+      return data;
+    }
+
+    _decodedData = await compute(_decodeJsonObject, raw);
+    return _decodedData;
+  }
+}
+
+Map<String, dynamic> _decodeJsonObject(Uint8List json) {
+  return Map<String, dynamic>.from(jsonDecode(utf8.decode(json)));
 }
 
 enum KumulosDeepLinkResolution {
@@ -60,18 +99,99 @@ class KumulosDeepLinkOutcome {
             : null;
 }
 
+class KumulosLocationUpdate {
+  final double latitude;
+  final double longitude;
+  final DateTime? timestamp;
+
+  KumulosLocationUpdate(
+      {required this.latitude, required this.longitude, this.timestamp});
+
+  Map<String, dynamic> _toMap() {
+    return {
+      'lat': latitude,
+      'lng': longitude,
+      'time': timestamp?.millisecondsSinceEpoch
+    };
+  }
+}
+
+/// Reads the compact forms of inbox items, push messages & deep link outcomes
+/// that Android writes when `compactMessageCodec` is enabled, decoding them to
+/// the same maps as the standard codec. Field orders must match
+/// KumulosMessageCodec.java.
+class _KumulosMessageCodec extends StandardMessageCodec {
+  static const int _inboxItem = 128;
+  static const int _pushMessage = 129;
+  static const int _deepLinkOutcome = 130;
+
+  static const List<String> _inboxItemFields = [
+    'id',
+    'title',
+    'subtitle',
+    'sentAt',
+    'isRead',
+    'data',
+    'imageUrl',
+    'localImagePath',
+    'availableFrom',
+    'availableTo',
+    'dismissedAt'
+  ];
+
+  static const List<String> _pushMessageFields = [
+    'id',
+    'title',
+    'message',
+    'actionId',
+    'data',
+    'url'
+  ];
+
+  static const List<String> _deepLinkOutcomeFields = [
+    'url',
+    'resolution',
+    'link'
+  ];
+
+  const _KumulosMessageCodec();
+
+  @override
+  dynamic readValueOfType(int type, ReadBuffer buffer) {
+    switch (type) {
+      case _inboxItem:
+        return _readFields(buffer, _inboxItemFields);
+      case _pushMessage:
+        return _readFields(buffer, _pushMessageFields);
+      case _deepLinkOutcome:
+        return _readFields(buffer, _deepLinkOutcomeFields);
+      default:
+        return super.readValueOfType(type, buffer);
+    }
+  }
+
+  Map<Object?, Object?> _readFields(ReadBuffer buffer, List<String> fields) {
+    var map = <Object?, Object?>{};
+    for (var field in fields) {
+      map[field] = readValue(buffer);
+    }
+    return map;
+  }
+}
+
 class Kumulos {
   static const _EVENT_TYPE_BEACON = 'k.engage.beaconEnteredProximity';
   static const _BEACON_TYPE_IBEACON = 1;
   static const _BEACON_TYPE_EDDYSTONE = 2;
 
-  static const MethodChannel _channel =
-      const MethodChannel('kumulos_sdk_flutter');
+  static const MethodChannel _channel = const MethodChannel(
+      'kumulos_sdk_flutter', const StandardMethodCodec(_KumulosMessageCodec()));
 
   // Event listeners
 
-  static const EventChannel _eventChannel =
-      const EventChannel('kumulos_sdk_flutter_events');
+  static const EventChannel _eventChannel = const EventChannel(
+      'kumulos_sdk_flutter_events',
+      const StandardMethodCodec(_KumulosMessageCodec()));
   static StreamSubscription? _eventStream;
 
   static void Function(KumulosPushNotification)? _pushOpenedHandler;
@@ -104,22 +224,30 @@ class Kumulos {
 
     _eventStream = _eventChannel.receiveBroadcastStream().listen((event) {
       String type = event['type'];
-      Map<String, dynamic> data = Map<String, dynamic>.from(event['data']);
-
-      switch (type) {
-        case 'push.opened':
-          _pushOpenedHandler?.call(KumulosPushNotification.fromMap(data));
-          return;
-        case 'push.received':
-          _pushReceivedHandler?.call(KumulosPushNotification.fromMap(data));
-          return;
-        case 'in-app.deepLinkPressed':
-          _inAppDeepLinkHandler?.call(data);
-          return;
-        case 'deep-linking.linkResolved':
-          _deepLinkHandler?.call(KumulosDeepLinkOutcome.fromMap(data));
-          return;
-      }
+
+      // Shows up alongside the native Kumulos.* trace sections in timeline captures
+      Timeline.timeSync('Kumulos.event.$type', () {
+        // In-app deep link data arrives as raw JSON when rawJsonPayloads is enabled
+        var rawData = event['data'];
+        Map<String, dynamic> data = rawData is Uint8List
+            ? _decodeJsonObject(rawData)
+            : Map<String, dynamic>.from(rawData);
+
+        switch (type) {
+          case 'push.opened':
+            _pushOpenedHandler?.call(KumulosPushNotification.fromMap(data));
+            return;
+          case 'push.received':
+            _pushReceivedHandler?.call(KumulosPushNotification.fromMap(data));
+            return;
+          case 'in-app.deepLinkPressed':
+            _inAppDeepLinkHandler?.call(data);
+            return;
+          case 'deep-linking.linkResolved':
+            _deepLinkHandler?.call(KumulosDeepLinkOutcome.fromMap(data));
+            return;
+        }
+      });
     });
   }
 
@@ -137,8 +265,8 @@ class Kumulos {
 
   static Future<void> associateUserWithInstall(
       {required String identifier, Map<String, dynamic>? attributes}) async {
-    return _channel.invokeMethod(
-        'associateUserWithInstall', {'id': identifier, 'attrs': attributes});
+    return _channel.invokeMethod('associateUserWithInstall',
+        {'id': identifier, 'attrs': _encodeProperties(attributes)});
   }
 
   static Future<void> clearUserAssociation() {
@@ -147,14 +275,104 @@ class Kumulos {
 
   static void trackEvent(
       {required String eventType, Map<String, dynamic>? properties}) {
-    _channel.invokeMethod(
-        'trackEvent', {'type': eventType, 'props': properties, 'flush': false});
+    if (_eventBatchSize > 0) {
+      _queueEvent(eventType, properties, false);
+      return;
+    }
+
+    _channel.invokeMethod('trackEvent', {
+      'type': eventType,
+      'props': _encodeProperties(properties),
+      'flush': false
+    });
   }
 
   static void trackEventImmediately(
       {required String eventType, Map<String, dynamic>? properties}) {
-    _channel.invokeMethod(
-        'trackEvent', {'type': eventType, 'props': properties, 'flush': true});
+    if (_eventBatchSize > 0) {
+      _queueEvent(eventType, properties, true);
+      return;
+    }
+
+    _channel.invokeMethod('trackEvent', {
+      'type': eventType,
+      'props': _encodeProperties(properties),
+      'flush': true
+    });
+  }
+
+  // Property encoding
+
+  static bool _preEncodeProperties = false;
+
+  /// Opt in to JSON-encoding event & user attribute properties on the Dart side.
+  ///
+  /// Properties are sent to the native SDK as UTF-8 JSON bytes, which avoids
+  /// decoding them into a native map before they are re-encoded as JSON.
+  static void setPreEncodedProperties(bool enabled) {
+    _preEncodeProperties = enabled;
+  }
+
+  static Object? _encodeProperties(Map<String, dynamic>? properties) {
+    if (!_preEncodeProperties || properties == null) {
+      return properties;
+    }
+
+    return Uint8List.fromList(utf8.encode(jsonEncode(properties)));
+  }
+
+  // Event batching
+
+  static int _eventBatchSize = 0;
+  static Duration _eventBatchDelay = Duration.zero;
+  static List<Map<String, dynamic>> _queuedEvents = [];
+  static Timer? _eventBatchTimer;
+
+  /// Opt in to sending tracked events to the native SDK in batches.
+  ///
+  /// Queued events are sent once [maxBatchSize] events are queued, [maxDelay]
+  /// has passed since the first queued event, or [trackEventImmediately] is
+  /// called. Disabling batching sends any queued events straight away.
+  static void setEventBatching(
+      {required bool enabled,
+      int maxBatchSize = 20,
+      Duration maxDelay = const Duration(milliseconds: 500)}) {
+    _eventBatchSize = enabled ? maxBatchSize : 0;
+    _eventBatchDelay = maxDelay;
+
+    if (!enabled) {
+      flushQueuedEvents();
+    }
+  }
+
+  /// Sends any events queued by event batching to the native SDK
+  static void flushQueuedEvents() {
+    _eventBatchTimer?.cancel();
+    _eventBatchTimer = null;
+
+    if (_queuedEvents.isEmpty) {
+      return;
+    }
+
+    var events = _queuedEvents;
+    _queuedEvents = [];
+    _channel.invokeMethod('trackEvents', events);
+  }
+
+  static void _queueEvent(
+      String eventType, Map<String, dynamic>? properties, bool flush) {
+    _queuedEvents.add({
+      'type': eventType,
+      'props': _encodeProperties(properties),
+      'flush': flush
+    });
+
+    if (flush || _queuedEvents.length >= _eventBatchSize) {
+      flushQueuedEvents();
+      return;
+    }
+
+    _eventBatchTimer ??= Timer(_eventBatchDelay, flushQueuedEvents);
   }
 
   // Location features
@@ -165,6 +383,17 @@ class Kumulos {
         'sendLocationUpdate', {'lat': latitude, 'lng': longitude});
   }
 
+  /// Sends several fixes in one platform call, e.g. when streaming GPS. On
+  /// Android, fixes pass through the filters configured in kumulos.json.
+  static void sendLocationUpdates(List<KumulosLocationUpdate> updates) {
+    if (updates.isEmpty) {
+      return;
+    }
+
+    _channel.invokeMethod(
+        'sendLocationUpdates', updates.map((u) => u._toMap()).toList());
+  }
+
   static void sendiBeaconProximity(
       {required String proximityUuid,
       required int major,
@@ -243,6 +472,30 @@ class Kumulos {
     });
   }
 
+  // Diagnostics
+
+  /// Native startup phase timings, as monotonic nanosecond `timestamps` and
+  /// step `durations`. Only instrumented on Android, empty on other platforms.
+  static Future<Map<String, dynamic>> getStartupMetrics() async {
+    var metrics = await _channel.invokeMethod('getStartupMetrics');
+
+    return metrics != null ? Map<String, dynamic>.from(metrics) : {};
+  }
+
+  /// Call counts, latency histograms & outcome counts per native method,
+  /// delivery counts & queue delays per event type, push open to delivery
+  /// latency, and event queue counters. Only recorded on Android, empty on
+  /// other platforms.
+  static Future<Map<String, dynamic>> getBridgeMetrics() async {
+    var metrics = await _channel.invokeMethod('getBridgeMetrics');
+
+    return metrics != null ? Map<String, dynamic>.from(metrics) : {};
+  }
+
+  static Future<void> resetBridgeMetrics() {
+    return _channel.invokeMethod('resetBridgeMetrics');
+  }
+
   // BaaS features
 
   static Future<KumulosBackendClient> get backendRpcClient async {
@@ -270,23 +523,56 @@ class KumulosInAppInboxItem {
   final bool isRead;
   final String? imageUrl;
 
+  /// The image downloaded to the device, when inbox image prefetching is
+  /// enabled on Android and the download has completed.
+  final String? localImagePath;
+
   KumulosInAppInboxItem.fromMap(Map<String, dynamic> map)
       : this.id = map['id'],
         this.title = map['title'],
         this.subtitle = map['subtitle'],
-        this.sentAt = DateTime.parse(map['sentAt']),
-        this.availableFrom = map['availableFrom'] != null
-            ? DateTime.parse(map['availableFrom'])
-            : null,
-        this.availableTo = map['availableTo'] != null
-            ? DateTime.parse(map['availableTo'])
-            : null,
-        this.data = map['data'],
-        this.dismissedAt = map['dismissedAt'] != null
-            ? DateTime.parse(map['dismissedAt'])
+        this.sentAt = _parseDate(map['sentAt'])!,
+        this.availableFrom = _parseDate(map['availableFrom']),
+        this.availableTo = _parseDate(map['availableTo']),
+        this.data = map['data'] != null
+            ? Map<String, dynamic>.from(map['data'])
             : null,
+        this.dismissedAt = _parseDate(map['dismissedAt']),
         this.isRead = map['isRead'],
-        this.imageUrl = map['imageUrl'];
+        this.imageUrl = map['imageUrl'],
+        this.localImagePath = map['localImagePath'];
+
+  // Android sends epoch millis when asked, iOS always sends ISO-8601 strings
+  static DateTime? _parseDate(dynamic value) {
+    if (value == null) {
+      return null;
+    }
+
+    if (value is int) {
+      return DateTime.fromMillisecondsSinceEpoch(value, isUtc: true);
+    }
+
+    return DateTime.parse(value);
+  }
+}
+
+class KumulosInAppInboxChanges {
+  /// Pass this back to [KumulosInApp.getInboxChanges] to fetch the next set of changes
+  final int revision;
+
+  /// When true, [items] holds the whole inbox and any locally held items should be replaced
+  final bool reset;
+  final List<KumulosInAppInboxItem> items;
+  final List<int> removedIds;
+
+  KumulosInAppInboxChanges.fromMap(Map<String, dynamic> map)
+      : revision = map['revision'],
+        reset = map['reset'],
+        items = List.from(map['items'])
+            .map((e) =>
+                KumulosInAppInboxItem.fromMap(Map<String, dynamic>.from(e)))
+            .toList(),
+        removedIds = List<int>.from(map['removedIds']);
 }
 
 class KumulosInAppInboxSummary {
@@ -294,18 +580,35 @@ class KumulosInAppInboxSummary {
   final int unreadCount;
 
   KumulosInAppInboxSummary(this.totalCount, this.unreadCount);
+
+  KumulosInAppInboxSummary._fromMap(Map<String, dynamic> map)
+      : totalCount = map['totalCount'],
+        unreadCount = map['unreadCount'];
 }
 
 class KumulosInApp {
-  static const EventChannel _eventChannel =
-      const EventChannel('kumulos_sdk_flutter_events_in_app');
+  static const EventChannel _eventChannel = const EventChannel(
+      'kumulos_sdk_flutter_events_in_app',
+      const StandardMethodCodec(_KumulosMessageCodec()));
   static StreamSubscription? _eventStream;
   static Function? _inboxUpdatedHandler;
+  static void Function(KumulosInAppInboxSummary)? _inboxSummaryChangedHandler;
 
   static setOnInboxUpdatedHandler(Function? handler) {
     _inboxUpdatedHandler = handler;
+    _updateEventStream();
+  }
 
-    if (handler == null) {
+  /// Called with the new counts whenever the inbox summary changes, so badges
+  /// can update without calling [getInboxSummary]. Only emitted on Android.
+  static setOnInboxSummaryChangedHandler(
+      void Function(KumulosInAppInboxSummary)? handler) {
+    _inboxSummaryChangedHandler = handler;
+    _updateEventStream();
+  }
+
+  static void _updateEventStream() {
+    if (_inboxUpdatedHandler == null && _inboxSummaryChangedHandler == null) {
       _eventStream?.cancel();
       _eventStream = null;
       return;
@@ -317,13 +620,18 @@ class KumulosInApp {
 
     _eventStream = _eventChannel.receiveBroadcastStream().listen((event) {
       String type = event['type'];
-      // Map<String, dynamic> data = Map<String, dynamic>.from(event['data']);
 
-      switch (type) {
-        case 'inbox.updated':
-          _inboxUpdatedHandler?.call();
-          break;
-      }
+      Timeline.timeSync('Kumulos.event.$type', () {
+        switch (type) {
+          case 'inbox.updated':
+            _inboxUpdatedHandler?.call();
+            break;
+          case 'summary.changed':
+            _inboxSummaryChangedHandler?.call(KumulosInAppInboxSummary._fromMap(
+                Map<String, dynamic>.from(event['data'])));
+            break;
+        }
+      });
     });
   }
 
@@ -332,7 +640,8 @@ class KumulosInApp {
   }
 
   static Future<List<KumulosInAppInboxItem>> getInboxItems() async {
-    var data = await Kumulos._channel.invokeMethod('inAppGetInboxItems');
+    var data = await Kumulos._channel
+        .invokeMethod('inAppGetInboxItems', {'epochMillis': true});
 
     if (data == null) {
       return [];
@@ -344,6 +653,17 @@ class KumulosInApp {
     return items;
   }
 
+  /// Fetches the inbox items added or changed, and the ids removed, since
+  /// [sinceRevision]. Pass -1 to fetch the whole inbox.
+  static Future<KumulosInAppInboxChanges> getInboxChanges(
+      int sinceRevision) async {
+    Map<String, dynamic> result = Map<String, dynamic>.from(
+        await Kumulos._channel.invokeMethod('inAppGetInboxChanges',
+            {'sinceRevision': sinceRevision, 'epochMillis': true}));
+
+    return KumulosInAppInboxChanges.fromMap(result);
+  }
+
   static Future<KumulosInAppPresentationResult> presentInboxMessage(
       KumulosInAppInboxItem item) async {
     var result = await Kumulos._channel
@@ -368,6 +688,35 @@ class KumulosInApp {
     return result ?? false;
   }
 
+  /// Marks several items as read in one platform call. Returns whether each
+  /// item was marked, by item id.
+  static Future<Map<int, bool>> markItemsAsRead(
+      List<KumulosInAppInboxItem> items) {
+    return _invokeBatch('inAppMarkAsReadBatch', items);
+  }
+
+  /// Deletes several items from the inbox in one platform call. Returns
+  /// whether each item was deleted, by item id.
+  static Future<Map<int, bool>> deleteMessagesFromInbox(
+      List<KumulosInAppInboxItem> items) {
+    return _invokeBatch('inAppDeleteBatch', items);
+  }
+
+  static Future<Map<int, bool>> _invokeBatch(
+      String method, List<KumulosInAppInboxItem> items) async {
+    if (items.isEmpty) {
+      return {};
+    }
+
+    var ids = items.map((item) => item.id).toList();
+    var results = await Kumulos._channel.invokeListMethod<bool>(method, ids);
+
+    return {
+      for (var i = 0; i < ids.length; i++)
+        ids[i]: results != null && i < results.length && results[i]
+    };
+  }
+
   static Future<bool> markAllInboxItemsAsRead() async {
     var result = await Kumulos._channel
         .invokeMethod<bool>('inAppMarkAllInboxItemsAsRead');
@@ -376,10 +725,13 @@ class KumulosInApp {
   }
 
   static Future<KumulosInAppInboxSummary?> getInboxSummary() async {
-    Map<String, dynamic> result = Map<String, dynamic>.from(
-        await Kumulos._channel.invokeMethod('inAppGetInboxSummary'));
+    var result = await Kumulos._channel.invokeMethod('inAppGetInboxSummary');
+
+    if (result == null) {
+      return null;
+    }
 
-    return KumulosInAppInboxSummary(
-        result['totalCount'], result['unreadCount']);
+    return KumulosInAppInboxSummary._fromMap(
+        Map<String, dynamic>.from(result));
   }
 }